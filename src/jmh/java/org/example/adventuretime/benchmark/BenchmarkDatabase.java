@@ -0,0 +1,140 @@
+package org.example.adventuretime.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.example.adventuretime.AdventureTimeApplication;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The application context on an in-memory H2 database in MySQL mode, seeded with the given
+ * volumes before the first iteration. Rows are written over JDBC so the caches and indexes start
+ * empty; the seed is fixed, so every run measures the same data. Volumes are JMH parameters,
+ * e.g. {@code -p tours=100000 -p transports=20}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    private static final String URL = "jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final String DIALECT = "org.hibernate.dialect.H2Dialect";
+    private static final int BATCH_SIZE = 1000;
+
+    // Read by SqlStatementProfiler, which JMH creates outside of any benchmark state. Kept after
+    // the teardown, which runs before the profiler has seen the last iteration.
+    private static volatile Statistics statistics;
+
+    @Param("10000")
+    public int tours;
+
+    @Param("50")
+    public int transports;
+
+    @Param("200")
+    public int countries;
+
+    @Param("3")
+    public int countriesPerTour;
+
+    private ConfigurableApplicationContext context;
+    private int nextTransport;
+
+    static Statistics statistics() {
+        return statistics;
+    }
+
+    @Setup
+    public void start() {
+        // Command-line arguments, so they win over application.properties.
+        context = new SpringApplicationBuilder(AdventureTimeApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=" + URL,
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=" + DIALECT,
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--adventuretime.cache.warmup.enabled=false",
+                        "--adventuretime.cache.snapshot.enabled=false",
+                        "--adventuretime.cache.change-log.enabled=false",
+                        // Both service variants share the cached IDs; off, each runs its query.
+                        "--adventuretime.cache.tour-ids-by-transport=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.example.adventuretime=WARN");
+        seed(context.getBean(JdbcTemplate.class));
+        statistics = context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // Cycles through all transports, so each one is queried equally often.
+    public String nextTransportName() {
+        nextTransport = (nextTransport + 1) % transports;
+        return transportName(nextTransport + 1);
+    }
+
+    private static String transportName(long id) {
+        return "Transport " + id;
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= transports; id++) {
+            rows.add(new Object[] {id, transportName(id), 10 + random.nextInt(300),
+                    50.0 + random.nextInt(2000)});
+        }
+        insert(jdbc, "INSERT INTO transport (id, name, capacity, cost, version) "
+                     + "VALUES (?, ?, ?, ?, 0)", rows);
+        for (long id = 1; id <= countries; id++) {
+            rows.add(new Object[] {id, "Country " + id, random.nextInt(10) > 0,
+                    "Attractions of country " + id, (double) random.nextInt(200),
+                    "Language " + id % 40});
+        }
+        insert(jdbc, "INSERT INTO country (id, name, available, attractions, visa_cost, "
+                     + "national_languages, version) VALUES (?, ?, ?, ?, ?, ?, 0)", rows);
+        List<Object[]> links = new ArrayList<>();
+        for (long id = 1; id <= tours; id++) {
+            rows.add(new Object[] {id, "Tour " + id, "Description of tour " + id,
+                    1 + random.nextInt(30), 1 + random.nextInt(transports)});
+            Set<Long> tourCountries = new HashSet<>();
+            while (tourCountries.size() < Math.min(countriesPerTour, countries)) {
+                tourCountries.add(1L + random.nextInt(countries));
+            }
+            for (Long countryId : tourCountries) {
+                links.add(new Object[] {id, countryId});
+            }
+        }
+        insert(jdbc, "INSERT INTO tour (id, name, description, duration_days, transport_id, "
+                     + "version) VALUES (?, ?, ?, ?, ?, 0)", rows);
+        insert(jdbc, "INSERT INTO tour_country (tour_id, country_id) VALUES (?, ?)", links);
+    }
+
+    private static void insert(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        rows.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.adventuretime.benchmark;
+
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the JDBC statements Hibernate prepared per benchmark operation, from the statistics
+ * of the context in {@link BenchmarkDatabase}. The first iteration starts before the context,
+ * so it reports nothing; it is a warmup iteration anyway.
+ */
+public class SqlStatementProfiler implements InternalProfiler {
+
+    private Statistics statistics;
+    private long statementsBefore;
+
+    @Override
+    public String getDescription() {
+        return "SQL statements prepared per operation";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        statistics = BenchmarkDatabase.statistics();
+        if (statistics != null) {
+            statementsBefore = statistics.getPrepareStatementCount();
+        }
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+                                                       IterationParams iterationParams,
+                                                       IterationResult result) {
+        long operations = result.getMetadata().getMeasuredOps();
+        if (statistics == null || operations == 0) {
+            return List.of();
+        }
+        double statements = statistics.getPrepareStatementCount() - statementsBefore;
+        return List.of(new ScalarResult("sql.statements", statements / operations,
+                "statements/op", AggregationPolicy.AVG));
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.adventuretime.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.example.adventuretime.repository.TourRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The two repository queries behind the by-transport endpoints, straight against the database:
+ * the JPQL one translated by Hibernate and the hand-written native one. Both return the same
+ * IDs, so the difference is query preparation and result handling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportQueryBenchmark {
+
+    private TourRepository tourRepository;
+
+    @Setup
+    public void setUp(BenchmarkDatabase database) {
+        tourRepository = database.getBean(TourRepository.class);
+    }
+
+    @Benchmark
+    public List<Long> jpql(BenchmarkDatabase database) {
+        return tourRepository.findIdsByTransportName(database.nextTransportName());
+    }
+
+    @Benchmark
+    public List<Long> nativeQuery(BenchmarkDatabase database) {
+        return tourRepository.findIdsByTransportNameNative(database.nextTransportName());
+    }
+}
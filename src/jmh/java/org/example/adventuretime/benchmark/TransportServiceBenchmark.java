@@ -0,0 +1,82 @@
+package org.example.adventuretime.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.example.adventuretime.cache.CacheRegion;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.config.CacheConfig;
+import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.service.TourService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The service methods of GET /api/tours/by-transport/{name} and its native variant, mapped DTOs
+ * included. The original full-entity queries ({@code findToursByTransportTypeJpql} and
+ * {@code findToursByTransportTypeNative}) no longer exist; both variants now query tour IDs and
+ * take the tours from the entity cache. The cache of those IDs is off in {@link BenchmarkDatabase},
+ * so each variant runs its own query on every call. With {@code cache=warm} the tours are put into
+ * the entity cache up front, as the startup warmup does; with {@code cache=cold} they are dropped
+ * before every call and loaded from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportServiceBenchmark {
+
+    @Param({"cold", "warm"})
+    public String cache;
+
+    private TourService tourService;
+    private CacheConfig cacheConfig;
+
+    @Setup
+    public void setUp(BenchmarkDatabase database) {
+        tourService = database.getBean(TourService.class);
+        cacheConfig = database.getBean(CacheConfig.class);
+        if ("warm".equals(cache)) {
+            for (int i = 0; i < database.transports; i++) {
+                tourService.findToursByTransportType(database.nextTransportName())
+                        .forEach(tour -> cacheConfig.putTour(tour.getId(), tour));
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void dropCaches() {
+        if (!"cold".equals(cache)) {
+            return;
+        }
+        for (CacheRegion<?> region : cacheConfig.getRegions()) {
+            if (region.type() == EntityType.TOUR) {
+                List<Long> ids = new ArrayList<>();
+                region.forEach((id, tour) -> ids.add(id));
+                ids.forEach(region::evict);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TourDto> jpql(BenchmarkDatabase database) {
+        return tourService.findToursByTransportType(database.nextTransportName());
+    }
+
+    @Benchmark
+    public List<TourDto> nativeQuery(BenchmarkDatabase database) {
+        return tourService.findToursByTransportTypeNative(database.nextTransportName());
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.adventuretime.cache;
+
+/**
+ * Follows the writes of other instances. The change feed calls every listener for each entity
+ * another instance changed, after evicting its cache entries; writes of this instance are
+ * applied by the services themselves.
+ */
+public interface CacheChangeListener {
+
+    void changed(EntityType type, Long id);
+}
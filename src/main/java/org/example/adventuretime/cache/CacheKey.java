@@ -0,0 +1,16 @@
+package org.example.adventuretime.cache;
+
+public record CacheKey(EntityType type, Long id) {
+
+    public static CacheKey tour(Long id) {
+        return new CacheKey(EntityType.TOUR, id);
+    }
+
+    public static CacheKey country(Long id) {
+        return new CacheKey(EntityType.COUNTRY, id);
+    }
+
+    public static CacheKey transport(Long id) {
+        return new CacheKey(EntityType.TRANSPORT, id);
+    }
+}
@@ -0,0 +1,360 @@
+package org.example.adventuretime.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import org.example.adventuretime.dto.CacheUsageDto;
+
+/**
+ * Everything cached for one entity type: DTOs by ID, the full-collection snapshot,
+ * in-flight loads, recently missing IDs and entries restored from disk awaiting validation.
+ * Entries nearing their TTL are reloaded on the refresher while the old value keeps serving.
+ * The DTOs and the snapshot have budgets of their own; restored entries are only weighed,
+ * they are dropped after a deadline instead.
+ */
+public class CacheRegion<V> {
+
+    private final EntityType type;
+    private final EntityCache<Long, V> cache;
+    private final NegativeCache<Long> missing;
+    private final JsonCache<V> json;
+    private final Function<V, Set<CacheKey>> references;
+    private final DependencyIndex dependencies;
+    private final AtomicLong invalidations;
+    private final Freshness freshness;
+    private final Executor refresher;
+    private final Runnable onStaleServed;
+    private final Weigher<Long, V> weigher;
+    private final CollectionSnapshot<V> all;
+    private final SingleFlight<Long, V> loads = new SingleFlight<>();
+    private final ConcurrentHashMap<Long, Restored<V>> restored = new ConcurrentHashMap<>();
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    private final LongAdder loaderCalls = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final AtomicLong restoredWeight = new AtomicLong();
+
+    public CacheRegion(EntityType type, EntityCache<Long, V> cache, Weigher<Long, V> weigher,
+                       long collectionMaxWeight, NegativeCache<Long> missing, JsonCache<V> json,
+                       Function<V, Set<CacheKey>> references, DependencyIndex dependencies,
+                       AtomicLong invalidations, Freshness freshness, Executor refresher,
+                       Runnable onStaleServed) {
+        this.type = type;
+        this.cache = cache;
+        this.weigher = weigher;
+        this.all = new CollectionSnapshot<>(weigher, collectionMaxWeight);
+        this.missing = missing;
+        this.json = json;
+        this.references = references;
+        this.dependencies = dependencies;
+        this.invalidations = invalidations;
+        this.freshness = freshness;
+        this.refresher = refresher;
+        this.onStaleServed = onStaleServed;
+    }
+
+    // Entries due for a refresh are left to load(), which has the loader to refresh them with.
+    public V get(Long id) {
+        return freshness.state(id) == Freshness.State.FRESH ? cache.get(id) : null;
+    }
+
+    // Only one caller per key runs the loader; the others wait for its result.
+    // IDs the repository did not find are remembered briefly to spare the database.
+    // An expired entry is still returned, marked stale, when reloading it fails.
+    public V load(Long id, Function<Long, V> loader) {
+        if (missing.contains(id)) {
+            return null;
+        }
+        Freshness.State state = freshness.state(id);
+        if (state == Freshness.State.REFRESH) {
+            V cached = cache.get(id);
+            if (cached != null) {
+                refresh(id, loader);
+                return cached;
+            }
+        }
+        try {
+            return loads.load(id, key -> {
+                V cached = unexpired(key) ? cache.get(key) : null;
+                if (cached != null) {
+                    return cached;
+                }
+                long epoch = invalidations.get();
+                V loaded = restoredOrLoad(key, loader);
+                if (loaded == null) {
+                    evict(key);
+                    missing.add(key);
+                    return null;
+                }
+                put(key, loaded);
+                if (invalidations.get() != epoch) {
+                    evict(key);
+                }
+                return loaded;
+            });
+        } catch (RuntimeException e) {
+            V stale = state == Freshness.State.STALE ? cache.get(id) : null;
+            if (stale == null) {
+                throw e;
+            }
+            staleServed.increment();
+            onStaleServed.run();
+            return stale;
+        }
+    }
+
+    private boolean unexpired(Long id) {
+        Freshness.State state = freshness.state(id);
+        return state == Freshness.State.FRESH || state == Freshness.State.REFRESH;
+    }
+
+    // At most one background reload per key; a failed one leaves the current value in place
+    // until it expires, a write during the reload discards what it read.
+    private void refresh(Long id, Function<Long, V> loader) {
+        if (!refreshing.add(id)) {
+            return;
+        }
+        long epoch = invalidations.get();
+        try {
+            refresher.execute(() -> {
+                try {
+                    V loaded = timedLoad(id, loader);
+                    if (loaded == null) {
+                        evict(id);
+                        return;
+                    }
+                    put(id, loaded);
+                    if (invalidations.get() != epoch) {
+                        evict(id);
+                    }
+                } catch (RuntimeException e) {
+                    // Counted as a load failure; callers keep the current value.
+                } finally {
+                    refreshing.remove(id);
+                }
+            });
+            refreshes.increment();
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(id);
+        }
+    }
+
+    // Entries read back from a persisted snapshot are only trusted once the database
+    // confirms they are still current, which is cheaper than running the loader.
+    private V restoredOrLoad(Long id, Function<Long, V> loader) {
+        Restored<V> entry = unrestore(id);
+        if (entry != null && entry.isCurrent().getAsBoolean()) {
+            return entry.value();
+        }
+        return timedLoad(id, loader);
+    }
+
+    private V timedLoad(Long id, Function<Long, V> loader) {
+        long start = System.nanoTime();
+        loaderCalls.increment();
+        try {
+            return loader.apply(id);
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            throw e;
+        } finally {
+            loadTimeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // Serialized form of the DTO; on a miss the DTO comes from the first tier or the loader.
+    public JsonBytes loadJson(Long id, Function<Long, V> loader) {
+        Freshness.State state = freshness.state(id);
+        if (state == Freshness.State.FRESH || state == Freshness.State.REFRESH) {
+            JsonBytes cached = json.get(id);
+            if (cached != null) {
+                if (state == Freshness.State.REFRESH) {
+                    refresh(id, loader);
+                }
+                return cached;
+            }
+        }
+        long epoch = invalidations.get();
+        V value = state == Freshness.State.FRESH ? cache.get(id) : null;
+        if (value == null) {
+            value = load(id, loader);
+        }
+        if (value == null) {
+            return null;
+        }
+        JsonBytes bytes = json.put(id, value);
+        if (invalidations.get() != epoch) {
+            json.remove(id);
+        }
+        return bytes;
+    }
+
+    // The write time and the references go first so an entry the cache refuses to admit, or
+    // evicts while inserting it, has them dropped by the eviction listener instead of left behind.
+    public void put(Long id, V value) {
+        freshness.written(id);
+        dependencies.register(new CacheKey(type, id), references.apply(value));
+        cache.put(id, value);
+        unrestore(id);
+        json.remove(id);
+        missing.remove(id);
+    }
+
+    public void evict(Long id) {
+        cache.remove(id);
+        unrestore(id);
+        json.remove(id);
+        missing.remove(id);
+        freshness.forget(id);
+        dependencies.unregister(new CacheKey(type, id));
+    }
+
+    public void forgetMissing(Collection<Long> ids) {
+        ids.forEach(missing::remove);
+    }
+
+    public void restore(Long id, V value, BooleanSupplier isCurrent) {
+        if (cache.get(id) == null) {
+            Restored<V> entry = new Restored<>(value, isCurrent, weigher.weigh(id, value));
+            restoredWeight.addAndGet(entry.weight());
+            Restored<V> replaced = restored.put(id, entry);
+            if (replaced != null) {
+                restoredWeight.addAndGet(-replaced.weight());
+            }
+        }
+    }
+
+    private Restored<V> unrestore(Long id) {
+        Restored<V> entry = restored.remove(id);
+        if (entry != null) {
+            restoredWeight.addAndGet(-entry.weight());
+        }
+        return entry;
+    }
+
+    public long restoredCount() {
+        return restored.size();
+    }
+
+    public long restoredWeight() {
+        return restoredWeight.get();
+    }
+
+    // Drops the restored entries that were never requested; returns how many there were.
+    public int dropRestored() {
+        int count = 0;
+        for (Long id : restored.keySet()) {
+            if (unrestore(id) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void forEach(BiConsumer<Long, V> action) {
+        cache.forEach(action);
+    }
+
+    public List<V> getAll() {
+        return all.get();
+    }
+
+    public long getAllVersion() {
+        return all.version();
+    }
+
+    public void putAll(long version, List<V> values) {
+        all.publish(version, values);
+    }
+
+    public void invalidateAll() {
+        all.invalidate();
+    }
+
+    public long collectionWeight() {
+        return all.weight();
+    }
+
+    public long collectionMaximumWeight() {
+        return all.maximumWeight();
+    }
+
+    public EntityType type() {
+        return type;
+    }
+
+    public String name() {
+        return type.getRegionName();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long weightedSize() {
+        return cache.weightedSize();
+    }
+
+    public long maximumWeight() {
+        return cache.maximumWeight();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public JsonCache<V> json() {
+        return json;
+    }
+
+    public long loadCount() {
+        return loaderCalls.sum();
+    }
+
+    public long loadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    public long totalLoadTimeNanos() {
+        return loadTimeNanos.sum();
+    }
+
+    public long coalescedLoadCount() {
+        return loads.coalescedCount();
+    }
+
+    public long negativeHitCount() {
+        return missing.hitCount();
+    }
+
+    public long refreshCount() {
+        return refreshes.sum();
+    }
+
+    public long staleServedCount() {
+        return staleServed.sum();
+    }
+
+    public CacheUsageDto usage() {
+        CacheStats stats = cache.stats();
+        return new CacheUsageDto(name(), cache.size(), cache.weightedSize(),
+                cache.maximumWeight(), json.size(), json.weightedSize(), collectionWeight(),
+                restoredCount(), restoredWeight(), stats.hitCount(),
+                stats.missCount(), stats.evictionCount(), loadCount(), loadFailureCount(),
+                totalLoadTimeNanos(), coalescedLoadCount(), negativeHitCount(), refreshCount(),
+                staleServedCount());
+    }
+
+    private record Restored<V>(V value, BooleanSupplier isCurrent, int weight) {
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.adventuretime.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters recorded by a cache on its own read and eviction paths.
+ * Striped adders keep the cost of a hit to a single uncontended increment.
+ */
+public class CacheStats {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction(int weight) {
+        evictions.increment();
+        evictionWeight.add(weight);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long evictionWeight() {
+        return evictionWeight.sum();
+    }
+}
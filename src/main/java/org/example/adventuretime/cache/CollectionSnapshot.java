@@ -0,0 +1,64 @@
+package org.example.adventuretime.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable "whole table" view of one entity type.
+ * A loader reads {@link #version()} before querying the repository and publishes with it;
+ * any write in between bumps the version, so a stale list can never be installed.
+ * A list weighing more than the budget is not kept; callers then read the table every time.
+ */
+public class CollectionSnapshot<V> {
+
+    private final AtomicReference<State<V>> state = new AtomicReference<>(new State<>(0, null, 0));
+    private final Weigher<Long, V> weigher;
+    private final long maxWeight;
+
+    public CollectionSnapshot(Weigher<Long, V> weigher, long maxWeight) {
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
+    }
+
+    public List<V> get() {
+        return state.get().items();
+    }
+
+    public long version() {
+        return state.get().version();
+    }
+
+    // Estimated size of the published list, zero while there is none.
+    public long weight() {
+        return state.get().weight();
+    }
+
+    public long maximumWeight() {
+        return maxWeight;
+    }
+
+    public boolean publish(long expectedVersion, List<V> items) {
+        State<V> current = state.get();
+        if (current.version() != expectedVersion || current.items() != null) {
+            return false;
+        }
+        long weight = HeapSizes.align(HeapSizes.ARRAY_HEADER)
+                + (long) items.size() * HeapSizes.REFERENCE;
+        for (V item : items) {
+            weight += weigher.weigh(null, item);
+            if (weight > maxWeight) {
+                return false;
+            }
+        }
+        State<V> loaded = new State<>(expectedVersion, Collections.unmodifiableList(items), weight);
+        return state.compareAndSet(current, loaded);
+    }
+
+    public void invalidate() {
+        state.updateAndGet(current -> new State<>(current.version() + 1, null, 0));
+    }
+
+    private record State<V>(long version, List<V> items, long weight) {
+    }
+}
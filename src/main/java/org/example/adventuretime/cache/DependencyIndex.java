@@ -0,0 +1,59 @@
+package org.example.adventuretime.cache;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from an entity to the cached DTOs that embed a copy of it,
+ * e.g. transport 7 -> {tour 3, country 12}. Entries describe what is in the cache,
+ * so they are registered on put and dropped on removal or eviction.
+ */
+public class DependencyIndex {
+
+    private final ConcurrentHashMap<CacheKey, Set<CacheKey>> dependents = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<CacheKey, Set<CacheKey>> references = new ConcurrentHashMap<>();
+
+    public void register(CacheKey dependent, Set<CacheKey> embedded) {
+        Set<CacheKey> previous = references.put(dependent, embedded);
+        if (previous != null) {
+            for (CacheKey reference : previous) {
+                if (!embedded.contains(reference)) {
+                    detach(reference, dependent);
+                }
+            }
+        }
+        for (CacheKey reference : embedded) {
+            dependents.compute(reference, (key, keys) -> {
+                Set<CacheKey> updated = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                updated.add(dependent);
+                return updated;
+            });
+        }
+    }
+
+    public void unregister(CacheKey dependent) {
+        Set<CacheKey> previous = references.remove(dependent);
+        if (previous != null) {
+            for (CacheKey reference : previous) {
+                detach(reference, dependent);
+            }
+        }
+    }
+
+    public Set<CacheKey> removeDependents(CacheKey reference) {
+        Set<CacheKey> removed = dependents.remove(reference);
+        return removed == null ? Collections.emptySet() : removed;
+    }
+
+    public long size() {
+        return references.size();
+    }
+
+    private void detach(CacheKey reference, CacheKey dependent) {
+        dependents.computeIfPresent(reference, (key, keys) -> {
+            keys.remove(dependent);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
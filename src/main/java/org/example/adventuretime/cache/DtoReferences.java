@@ -0,0 +1,82 @@
+package org.example.adventuretime.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.experimental.UtilityClass;
+import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.TransportDto;
+
+/**
+ * Entities whose data is copied into a cached DTO graph. A change to any of them
+ * makes the cached DTO stale.
+ */
+@UtilityClass
+public class DtoReferences {
+
+    public Set<CacheKey> tour(TourDto dto) {
+        Set<CacheKey> references = new HashSet<>();
+        if (dto.getCountries() != null) {
+            dto.getCountries().forEach(country -> references.add(CacheKey.country(country.getId())));
+        }
+        addTransport(references, dto.getTransport());
+        return references;
+    }
+
+    public Set<CacheKey> country(CountryDto dto) {
+        Set<CacheKey> references = new HashSet<>();
+        if (dto.getTours() != null) {
+            for (TourDto tour : dto.getTours()) {
+                references.add(CacheKey.tour(tour.getId()));
+                addTransport(references, tour.getTransport());
+            }
+        }
+        return references;
+    }
+
+    public Set<CacheKey> transport(TransportDto dto) {
+        return Set.of();
+    }
+
+    // Version of every entity copied into the DTO, keyed like the cache itself.
+    public Map<CacheKey, Long> tourVersions(TourDto dto) {
+        Map<CacheKey, Long> versions = new HashMap<>();
+        versions.put(CacheKey.tour(dto.getId()), dto.getVersion());
+        if (dto.getCountries() != null) {
+            dto.getCountries().forEach(country ->
+                    versions.put(CacheKey.country(country.getId()), country.getVersion()));
+        }
+        addTransportVersion(versions, dto.getTransport());
+        return versions;
+    }
+
+    public Map<CacheKey, Long> countryVersions(CountryDto dto) {
+        Map<CacheKey, Long> versions = new HashMap<>();
+        versions.put(CacheKey.country(dto.getId()), dto.getVersion());
+        if (dto.getTours() != null) {
+            for (TourDto tour : dto.getTours()) {
+                versions.put(CacheKey.tour(tour.getId()), tour.getVersion());
+                addTransportVersion(versions, tour.getTransport());
+            }
+        }
+        return versions;
+    }
+
+    public Map<CacheKey, Long> transportVersions(TransportDto dto) {
+        return Map.of(CacheKey.transport(dto.getId()), dto.getVersion());
+    }
+
+    private void addTransportVersion(Map<CacheKey, Long> versions, TransportDto transport) {
+        if (transport != null) {
+            versions.put(CacheKey.transport(transport.getId()), transport.getVersion());
+        }
+    }
+
+    private void addTransport(Set<CacheKey> references, TransportDto transport) {
+        if (transport != null) {
+            references.add(CacheKey.transport(transport.getId()));
+        }
+    }
+}
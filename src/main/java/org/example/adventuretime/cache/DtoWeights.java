@@ -0,0 +1,105 @@
+package org.example.adventuretime.cache;
+
+import java.util.Collection;
+import lombok.experimental.UtilityClass;
+import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.TransportDto;
+
+/**
+ * Rough retained-size estimates for cached DTO graphs on a 64-bit JVM with compressed oops.
+ * Nested DTOs are counted in full because the mappers never share instances between entries.
+ */
+@UtilityClass
+public class DtoWeights {
+
+    public int tour(Long id, TourDto dto) {
+        return tour(dto, true);
+    }
+
+    public int country(Long id, CountryDto dto) {
+        return country(dto, true);
+    }
+
+    public int transport(Long id, TransportDto dto) {
+        return transport(dto);
+    }
+
+    public int json(Long id, JsonBytes json) {
+        return align(HeapSizes.OBJECT_HEADER + HeapSizes.REFERENCE + 1)
+                + align(HeapSizes.ARRAY_HEADER + json.length());
+    }
+
+    private int tour(TourDto dto, boolean withCountries) {
+        if (dto == null) {
+            return 0;
+        }
+        long size = align(HeapSizes.OBJECT_HEADER + 7 * HeapSizes.REFERENCE)
+                + boxed(dto.getId())
+                + boxed(dto.getVersion())
+                + string(dto.getName())
+                + string(dto.getDescription())
+                + boxed(dto.getDurationDays())
+                + transport(dto.getTransport());
+        if (withCountries && dto.getCountries() != null) {
+            size += set(dto.getCountries());
+            for (CountryDto country : dto.getCountries()) {
+                size += country(country, false);
+            }
+        }
+        return saturate(size);
+    }
+
+    private int country(CountryDto dto, boolean withTours) {
+        if (dto == null) {
+            return 0;
+        }
+        long size = align(HeapSizes.OBJECT_HEADER + 1 + 7 * HeapSizes.REFERENCE)
+                + boxed(dto.getId())
+                + boxed(dto.getVersion())
+                + string(dto.getName())
+                + string(dto.getAttractions())
+                + boxed(dto.getVisaCost())
+                + string(dto.getNationalLanguages());
+        if (withTours && dto.getTours() != null) {
+            size += set(dto.getTours());
+            for (TourDto tour : dto.getTours()) {
+                size += tour(tour, false);
+            }
+        }
+        return saturate(size);
+    }
+
+    private int transport(TransportDto dto) {
+        if (dto == null) {
+            return 0;
+        }
+        return align(HeapSizes.OBJECT_HEADER + 5 * HeapSizes.REFERENCE)
+                + boxed(dto.getId())
+                + boxed(dto.getVersion())
+                + string(dto.getName())
+                + boxed(dto.getCapacity())
+                + boxed(dto.getCost());
+    }
+
+    private int boxed(Object value) {
+        return value == null ? 0 : HeapSizes.BOXED;
+    }
+
+    private int string(String value) {
+        return HeapSizes.string(value);
+    }
+
+    private long set(Collection<?> values) {
+        return HeapSizes.HASH_SET + HeapSizes.hashTable(values.size())
+                + (long) values.size() * HeapSizes.HASH_MAP_NODE;
+    }
+
+    private int align(int size) {
+        return HeapSizes.align(size);
+    }
+
+    private int saturate(long size) {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.adventuretime.cache;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+public interface EntityCache<K, V> {
+
+    V get(K key);
+
+    void put(K key, V value);
+
+    void remove(K key);
+
+    Collection<V> getAll();
+
+    void forEach(BiConsumer<? super K, ? super V> action);
+
+    long size();
+
+    long weightedSize();
+
+    long maximumWeight();
+
+    CacheStats stats();
+}
@@ -0,0 +1,17 @@
+package org.example.adventuretime.cache;
+
+public enum EntityType {
+    TOUR("tours"),
+    COUNTRY("countries"),
+    TRANSPORT("transports");
+
+    private final String regionName;
+
+    EntityType(String regionName) {
+        this.regionName = regionName;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+}
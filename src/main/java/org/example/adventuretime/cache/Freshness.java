@@ -0,0 +1,66 @@
+package org.example.adventuretime.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Write times of a region's entries and the TTL they are judged by. An entry is fresh until
+ * the refresh-ahead point, then served while a background reload replaces it, and expired at
+ * the TTL. For {@code maxStale} past the TTL it may still be served if the reload fails.
+ */
+public class Freshness {
+
+    public enum State {
+        FRESH,
+        REFRESH,
+        STALE,
+        EXPIRED
+    }
+
+    private final ConcurrentHashMap<Long, Long> writtenAt = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final long refreshNanos;
+    private final long staleNanos;
+    private final LongSupplier clock;
+
+    public Freshness(Duration ttl, double refreshAhead, Duration maxStale, LongSupplier clock) {
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.refreshNanos = (long) (ttlNanos * refreshAhead);
+        this.staleNanos = ttlNanos + maxStale.toNanos();
+        this.clock = clock;
+    }
+
+    public boolean expires() {
+        return ttlNanos > 0;
+    }
+
+    public void written(Long id) {
+        if (expires()) {
+            writtenAt.put(id, clock.getAsLong());
+        }
+    }
+
+    public void forget(Long id) {
+        writtenAt.remove(id);
+    }
+
+    // Without a recorded write time the entry is treated as expired and reloaded.
+    public State state(Long id) {
+        if (!expires()) {
+            return State.FRESH;
+        }
+        Long written = writtenAt.get(id);
+        if (written == null) {
+            return State.EXPIRED;
+        }
+        long age = clock.getAsLong() - written;
+        if (age < refreshNanos) {
+            return State.FRESH;
+        }
+        if (age < ttlNanos) {
+            return State.REFRESH;
+        }
+        return age < staleNanos ? State.STALE : State.EXPIRED;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.adventuretime.cache;
+
+import java.util.BitSet;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Rough sizes of the JDK structures the caches and indexes are built from, for a 64-bit JVM
+ * with compressed oops. Good enough to budget memory, not to account for it byte by byte.
+ */
+@UtilityClass
+public class HeapSizes {
+
+    public static final int OBJECT_HEADER = 12;
+    public static final int REFERENCE = 4;
+    public static final int BOXED = 16;
+    public static final int ARRAY_HEADER = 16;
+    public static final int HASH_MAP = 48;
+    public static final int HASH_SET = 16 + HASH_MAP;
+    public static final int HASH_MAP_NODE = 32;
+    // A tree or skip list node with its share of the index levels.
+    public static final int SORTED_MAP_NODE = 48;
+
+    private static final int STRING = 24;
+    private static final int BIT_SET = 24;
+
+    public int string(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return STRING + align(ARRAY_HEADER + value.length() * bytesPerChar);
+    }
+
+    public long bitSet(BitSet bits) {
+        return BIT_SET + align(ARRAY_HEADER) + bits.size() / 8;
+    }
+
+    // Table of a hash map or set holding this many entries at the default load factor.
+    public long hashTable(int entries) {
+        int capacity = 16;
+        while (capacity * 0.75 < entries) {
+            capacity <<= 1;
+        }
+        return align(ARRAY_HEADER + capacity * REFERENCE);
+    }
+
+    public int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.adventuretime.cache;
+
+/**
+ * A query index held next to the cache regions. Unlike them it has no budget, it needs every
+ * row to answer queries, so its estimated size is published instead ({@code cache.index.*}).
+ */
+public interface InMemoryIndex {
+
+    String indexName();
+
+    long entryCount();
+
+    long weightedSize();
+}
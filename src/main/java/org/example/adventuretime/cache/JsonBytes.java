@@ -0,0 +1,44 @@
+package org.example.adventuretime.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Serialized UTF-8 JSON of a cached DTO, optionally gzip-compressed.
+ */
+public final class JsonBytes {
+
+    private final byte[] content;
+    private final boolean gzipped;
+
+    public JsonBytes(byte[] content, boolean gzipped) {
+        this.content = content;
+        this.gzipped = gzipped;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public boolean isGzipped() {
+        return gzipped;
+    }
+
+    public int length() {
+        return content.length;
+    }
+
+    // For clients that do not accept gzip.
+    public byte[] plain() {
+        if (!gzipped) {
+            return content;
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
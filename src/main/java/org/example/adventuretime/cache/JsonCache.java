@@ -0,0 +1,67 @@
+package org.example.adventuretime.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Second tier of a {@link CacheRegion} holding the serialized response body of each DTO,
+ * so hot reads can be written to the response without running Jackson again.
+ * A {@code null} cache disables the tier; values are then serialized on every call.
+ */
+public class JsonCache<V> {
+
+    private final EntityCache<Long, JsonBytes> cache;
+    private final Function<V, byte[]> serializer;
+    private final boolean gzip;
+
+    public JsonCache(EntityCache<Long, JsonBytes> cache, Function<V, byte[]> serializer,
+                     boolean gzip) {
+        this.cache = cache;
+        this.serializer = serializer;
+        this.gzip = gzip;
+    }
+
+    public JsonBytes get(Long id) {
+        return cache == null ? null : cache.get(id);
+    }
+
+    public JsonBytes put(Long id, V value) {
+        byte[] json = serializer.apply(value);
+        JsonBytes bytes = gzip ? new JsonBytes(gzip(json), true) : new JsonBytes(json, false);
+        if (cache != null) {
+            cache.put(id, bytes);
+        }
+        return bytes;
+    }
+
+    public void remove(Long id) {
+        if (cache != null) {
+            cache.remove(id);
+        }
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    public long weightedSize() {
+        return cache == null ? 0 : cache.weightedSize();
+    }
+
+    public CacheStats stats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
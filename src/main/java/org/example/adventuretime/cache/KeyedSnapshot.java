@@ -0,0 +1,56 @@
+package org.example.adventuretime.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Query results cached by key, e.g. the tour IDs per transport name. Guarded like
+ * {@link CollectionSnapshot}: a loader reads {@link #version()} before querying and publishes
+ * with it, and every invalidation bumps the version, so a result read before a write is never
+ * installed after it. Once {@code maxEntries} keys are held, further results are not cached.
+ */
+public class KeyedSnapshot<K, V> {
+
+    private final ConcurrentHashMap<K, V> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final int maxEntries;
+
+    public KeyedSnapshot(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public V get(K key) {
+        return entries.get(key);
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public boolean publish(long expectedVersion, K key, V value) {
+        if (version.get() != expectedVersion || entries.size() >= maxEntries) {
+            return false;
+        }
+        entries.put(key, value);
+        // An invalidation between the check and the put has to win.
+        if (version.get() != expectedVersion) {
+            entries.remove(key, value);
+            return false;
+        }
+        return true;
+    }
+
+    public void invalidate(K key) {
+        version.incrementAndGet();
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.adventuretime.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+public class LruCache<K, V> implements EntityCache<K, V> {
+    private final Map<K, Weighted<V>> cache;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CacheStats stats = new CacheStats();
+    private final long maxWeight;
+    private final Weigher<K, V> weigher;
+    private final BiConsumer<K, V> evictionListener;
+    private long weightedSize;
+
+    public LruCache(int maxSize) {
+        this(maxSize, Weigher.singleton());
+    }
+
+    public LruCache(long maxWeight, Weigher<K, V> weigher) {
+        this(maxWeight, weigher, (key, value) -> { });
+    }
+
+    public LruCache(long maxWeight, Weigher<K, V> weigher, BiConsumer<K, V> evictionListener) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+    }
+
+    @Override
+    public V get(K key) {
+        lock.lock();
+        try {
+            Weighted<V> entry = cache.get(key);
+            if (entry == null) {
+                stats.recordMiss();
+                return null;
+            }
+            stats.recordHit();
+            return entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        lock.lock();
+        try {
+            Weighted<V> previous = cache.put(key, new Weighted<>(value, weight));
+            if (previous != null) {
+                weightedSize -= previous.weight();
+            }
+            weightedSize += weight;
+            evictEldest();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        lock.lock();
+        try {
+            Weighted<V> removed = cache.remove(key);
+            if (removed != null) {
+                weightedSize -= removed.weight();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<V> getAll() {
+        lock.lock();
+        try {
+            Collection<V> values = new ArrayList<>(cache.size());
+            cache.values().forEach(entry -> values.add(entry.value()));
+            return values;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Map<K, V> copy;
+        lock.lock();
+        try {
+            copy = new LinkedHashMap<>(cache.size());
+            cache.forEach((key, entry) -> copy.put(key, entry.value()));
+        } finally {
+            lock.unlock();
+        }
+        copy.forEach(action);
+    }
+
+    @Override
+    public long size() {
+        lock.lock();
+        try {
+            return cache.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long weightedSize() {
+        lock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long maximumWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats;
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<K, Weighted<V>>> eldest = cache.entrySet().iterator();
+        while (weightedSize > maxWeight && eldest.hasNext()) {
+            Map.Entry<K, Weighted<V>> entry = eldest.next();
+            weightedSize -= entry.getValue().weight();
+            eldest.remove();
+            stats.recordEviction(entry.getValue().weight());
+            evictionListener.accept(entry.getKey(), entry.getValue().value());
+        }
+    }
+
+    private record Weighted<V>(V value, int weight) {
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.adventuretime.cache;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index of entity names, compared the way MySQL's default collation does: ignoring
+ * case and accents. A sorted map answers prefix queries; trigrams narrow a substring query to
+ * the names containing every trigram of the needle. Names are padded with two end markers, so
+ * needles shorter than three characters are prefixes of some trigram. Its estimated size is
+ * kept up to date on every write.
+ */
+public class NameIndex {
+
+    private static final char END = '\u0000';
+    private static final char LAST = '\uffff';
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final ConcurrentHashMap<Long, String> names = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> keys = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Long> sorted = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> trigrams =
+            new ConcurrentSkipListMap<>();
+    private volatile long weight;
+
+    public static String normalize(String text) {
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(folded).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public synchronized void put(Long id, String name) {
+        remove(id);
+        if (name == null) {
+            return;
+        }
+        String key = normalize(name);
+        names.put(id, name);
+        keys.put(id, key);
+        sorted.put(key + END + id, id);
+        Set<String> grams = grams(key);
+        for (String gram : grams) {
+            trigrams.computeIfAbsent(gram, g -> {
+                weight += gramWeight(g);
+                return ConcurrentHashMap.newKeySet();
+            }).add(id);
+        }
+        weight += weight(id, name, key, grams.size());
+    }
+
+    public synchronized void remove(Long id) {
+        String key = keys.remove(id);
+        if (key == null) {
+            return;
+        }
+        String name = names.remove(id);
+        sorted.remove(key + END + id);
+        Set<String> grams = grams(key);
+        for (String gram : grams) {
+            trigrams.computeIfPresent(gram, (g, ids) -> {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    weight -= gramWeight(g);
+                    return null;
+                }
+                return ids;
+            });
+        }
+        weight -= weight(id, name, key, grams.size());
+    }
+
+    // The name, its key in both maps and the sorted map, and one set entry per trigram.
+    private static long weight(Long id, String name, String key, int grams) {
+        return HeapSizes.BOXED + 2L * HeapSizes.HASH_MAP_NODE + HeapSizes.string(name)
+                + HeapSizes.string(key) + HeapSizes.SORTED_MAP_NODE
+                + HeapSizes.string(key + END + id) + (long) grams * HeapSizes.HASH_MAP_NODE;
+    }
+
+    private static long gramWeight(String gram) {
+        return HeapSizes.SORTED_MAP_NODE + HeapSizes.string(gram) + HeapSizes.HASH_SET;
+    }
+
+    public synchronized void clear() {
+        names.clear();
+        keys.clear();
+        sorted.clear();
+        trigrams.clear();
+        weight = 0;
+    }
+
+    public String name(Long id) {
+        return names.get(id);
+    }
+
+    // The normalized form the queries compare against.
+    public String key(Long id) {
+        return keys.get(id);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public long weightedSize() {
+        return weight;
+    }
+
+    // IDs of names starting with the prefix, in name order; limit < 0 returns all of them.
+    public List<Long> startingWith(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<Long> ids = new ArrayList<>();
+        for (Long id : sorted.subMap(key, true, key + LAST, true).values()) {
+            if (ids.size() == limit) {
+                break;
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    // IDs of names containing the needle, in no particular order.
+    public Set<Long> containing(String needle) {
+        String key = normalize(needle);
+        if (key.isEmpty()) {
+            return new HashSet<>(names.keySet());
+        }
+        Set<Long> candidates;
+        if (key.length() < 3) {
+            candidates = new HashSet<>();
+            trigrams.subMap(key, true, key + LAST, true).values().forEach(candidates::addAll);
+        } else {
+            List<Set<Long>> postings = new ArrayList<>();
+            for (int i = 0; i + 3 <= key.length(); i++) {
+                Set<Long> ids = trigrams.get(key.substring(i, i + 3));
+                if (ids == null) {
+                    return new HashSet<>();
+                }
+                postings.add(ids);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            candidates = new HashSet<>(postings.get(0));
+            for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+                candidates.retainAll(postings.get(i));
+            }
+        }
+        candidates.removeIf(id -> {
+            String candidate = keys.get(id);
+            return candidate == null || !candidate.contains(key);
+        });
+        return candidates;
+    }
+
+    private static Set<String> grams(String key) {
+        String padded = key + END + END;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.adventuretime.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers keys the repository reported as missing for a short TTL.
+ * When full, expired keys are purged and new keys are dropped rather than evicting,
+ * so a flood of random IDs can never grow it past {@code maxEntries}.
+ */
+public class NegativeCache<K> {
+
+    private final ConcurrentHashMap<K, Long> expirations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public NegativeCache(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean contains(K key) {
+        Long expiresAt = expirations.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - System.nanoTime() <= 0) {
+            expirations.remove(key, expiresAt);
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+
+    public void add(K key) {
+        if (ttlNanos <= 0 || maxEntries <= 0) {
+            return;
+        }
+        if (expirations.size() >= maxEntries) {
+            purgeExpired();
+            if (expirations.size() >= maxEntries) {
+                return;
+            }
+        }
+        expirations.put(key, System.nanoTime() + ttlNanos);
+    }
+
+    public void remove(K key) {
+        expirations.remove(key);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        expirations.values().removeIf(expiresAt -> expiresAt - now <= 0);
+    }
+}
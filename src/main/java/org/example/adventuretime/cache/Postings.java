@@ -0,0 +1,135 @@
+package org.example.adventuretime.cache;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Posting lists of one attribute: for every value the IDs having it, as a bitmap, so filters
+ * combine by AND/OR over machine words rather than by comparing rows. Values are kept sorted
+ * and a range is the union of the bitmaps between its ends. An ID may carry several values.
+ * Not thread-safe; the owner guards it.
+ */
+public class Postings<K extends Comparable<K>> {
+
+    private final TreeMap<K, BitSet> byValue = new TreeMap<>();
+    private final Map<Long, Set<K>> valuesOf = new HashMap<>();
+    private long valueCount;
+
+    public static int bit(long id) {
+        return Math.toIntExact(id);
+    }
+
+    // Whether a bitmap can hold the ID; no row outside this range can be indexed.
+    public static boolean fits(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    public void put(long id, K value) {
+        put(id, value == null ? Set.of() : Set.of(value));
+    }
+
+    public void put(long id, Collection<K> values) {
+        remove(id);
+        if (values.isEmpty()) {
+            return;
+        }
+        for (K value : values) {
+            byValue.computeIfAbsent(value, v -> new BitSet()).set(bit(id));
+        }
+        valuesOf.put(id, new HashSet<>(values));
+        valueCount += values.size();
+    }
+
+    public void remove(long id) {
+        Set<K> values = valuesOf.remove(id);
+        if (values == null) {
+            return;
+        }
+        valueCount -= values.size();
+        for (K value : values) {
+            BitSet ids = byValue.get(value);
+            ids.clear(bit(id));
+            if (ids.isEmpty()) {
+                byValue.remove(value);
+            }
+        }
+    }
+
+    // Drops a value from every ID carrying it, e.g. a deleted country from its tours.
+    public void removeValue(K value) {
+        BitSet ids = byValue.remove(value);
+        if (ids == null) {
+            return;
+        }
+        ids.stream().forEach(id -> {
+            Set<K> values = valuesOf.get((long) id);
+            values.remove(value);
+            valueCount--;
+            if (values.isEmpty()) {
+                valuesOf.remove((long) id);
+            }
+        });
+    }
+
+    public void clear() {
+        byValue.clear();
+        valuesOf.clear();
+        valueCount = 0;
+    }
+
+    public BitSet get(K value) {
+        BitSet ids = byValue.get(value);
+        return ids == null ? new BitSet() : (BitSet) ids.clone();
+    }
+
+    // IDs with a value between the bounds, both inclusive; a null bound is open.
+    public BitSet range(K from, K to) {
+        NavigableMap<K, BitSet> values = byValue;
+        if (from != null && to != null) {
+            if (from.compareTo(to) > 0) {
+                return new BitSet();
+            }
+            values = byValue.subMap(from, true, to, true);
+        } else if (from != null) {
+            values = byValue.tailMap(from, true);
+        } else if (to != null) {
+            values = byValue.headMap(to, true);
+        }
+        BitSet ids = new BitSet();
+        values.values().forEach(ids::or);
+        return ids;
+    }
+
+    // IDs carrying at least one of the values.
+    public BitSet anyOf(Collection<K> values) {
+        BitSet ids = new BitSet();
+        for (K value : values) {
+            BitSet posting = byValue.get(value);
+            if (posting != null) {
+                ids.or(posting);
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        return valuesOf.size();
+    }
+
+    // Bitmaps by value, and the values of every ID as a set; a value is counted as a boxed one.
+    public long weightedSize() {
+        long weight = (long) valuesOf.size()
+                * (HeapSizes.HASH_MAP_NODE + HeapSizes.BOXED + HeapSizes.HASH_SET)
+                + valueCount * HeapSizes.HASH_MAP_NODE;
+        for (BitSet ids : byValue.values()) {
+            weight += HeapSizes.SORTED_MAP_NODE + HeapSizes.BOXED + HeapSizes.bitSet(ids);
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.adventuretime.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over free text, ranked with Okapi BM25. Text is split on anything
+ * that is not a letter or digit in any script, so Cyrillic words are terms like Latin ones,
+ * and folded the way {@link NameIndex} folds names: case and accents are ignored, which also
+ * maps "ё" to "е". There is no stemming; a query term matches whole words only. Its estimated
+ * size is kept up to date on every write.
+ */
+public class TextIndex<K> {
+
+    public record Hit<K>(K key, double score) {
+    }
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Entries of a document in the documents and lengths maps, its term map and its length.
+    private static final int DOCUMENT =
+            2 * HeapSizes.HASH_MAP_NODE + HeapSizes.HASH_MAP + HeapSizes.BOXED;
+    private static final int POSTING_LIST = HeapSizes.HASH_MAP_NODE + HeapSizes.HASH_MAP;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<K, Integer>> postings = new HashMap<>();
+    private final Map<K, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<K, Integer> lengths = new HashMap<>();
+    private long totalLength;
+    private long weight;
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SEPARATORS.split(NameIndex.normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public void put(K key, String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        List<String> tokens = tokenize(text);
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            if (tokens.isEmpty()) {
+                return;
+            }
+            documents.put(key, frequencies);
+            lengths.put(key, tokens.size());
+            totalLength += tokens.size();
+            weight += weight(frequencies);
+            frequencies.forEach((term, count) ->
+                    postings.computeIfAbsent(term, t -> {
+                        weight += POSTING_LIST;
+                        return new HashMap<>();
+                    }).put(key, count));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(K key) {
+        Map<String, Integer> frequencies = documents.remove(key);
+        if (frequencies == null) {
+            return;
+        }
+        totalLength -= lengths.remove(key);
+        weight -= weight(frequencies);
+        frequencies.forEach((term, count) -> {
+            Map<K, Integer> docs = postings.get(term);
+            docs.remove(key);
+            if (docs.isEmpty()) {
+                postings.remove(term);
+                weight -= POSTING_LIST;
+            }
+        });
+    }
+
+    // Per term: its string, its count in the document and the document in its posting list.
+    private static long weight(Map<String, Integer> frequencies) {
+        long weight = DOCUMENT + HeapSizes.hashTable(frequencies.size());
+        for (String term : frequencies.keySet()) {
+            weight += 2 * HeapSizes.HASH_MAP_NODE + HeapSizes.string(term);
+        }
+        return weight;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            lengths.clear();
+            totalLength = 0;
+            weight = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long weightedSize() {
+        lock.readLock().lock();
+        try {
+            return weight;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The best matches for any of the query terms, highest score first.
+    public List<Hit<K>> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        Map<K, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int count = documents.size();
+            if (count == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / count;
+            for (String term : terms) {
+                Map<K, Integer> docs = postings.get(term);
+                if (docs == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (count - docs.size() + 0.5) / (docs.size() + 0.5));
+                docs.forEach((key, frequency) -> {
+                    double norm = K1 * (1 - B + B * lengths.get(key) / averageLength);
+                    scores.merge(key, idf * frequency * (K1 + 1) / (frequency + norm),
+                            Double::sum);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        PriorityQueue<Hit<K>> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        scores.forEach((key, score) -> {
+            best.add(new Hit<>(key, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+        List<Hit<K>> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit<K>::score).reversed());
+        return hits;
+    }
+}
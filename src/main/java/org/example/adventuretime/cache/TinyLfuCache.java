@@ -0,0 +1,455 @@
+package org.example.adventuretime.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Weight-bounded cache with a W-TinyLFU eviction policy.
+ * Reads only touch the {@link ConcurrentHashMap} and a striped, lossy ring buffer;
+ * recency and frequency updates are replayed in batches by whichever thread wins the
+ * eviction lock, so concurrent readers never block each other.
+ */
+public class TinyLfuCache<K, V> implements EntityCache<K, V> {
+
+    private static final double WINDOW_PERCENT = 0.01;
+    private static final double PROTECTED_PERCENT = 0.80;
+    private static final int INITIAL_SKETCH_CAPACITY = 1024;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReadBuffer<K, V> readBuffer = new ReadBuffer<>();
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final Weigher<K, V> weigher;
+    private final BiConsumer<K, V> evictionListener;
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedDeque = new AccessOrderDeque<>();
+
+    private final CacheStats stats = new CacheStats();
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long mainMaximum;
+    private final long protectedMaximum;
+
+    private long windowWeight;
+    private long mainWeight;
+    private long protectedWeight;
+    private long sketchCapacity;
+    private volatile long weightedSize;
+
+    public TinyLfuCache(long maximum) {
+        this(maximum, Weigher.singleton());
+    }
+
+    public TinyLfuCache(long maximumWeight, Weigher<K, V> weigher) {
+        this(maximumWeight, weigher, (key, value) -> { });
+    }
+
+    public TinyLfuCache(long maximumWeight, Weigher<K, V> weigher,
+                        BiConsumer<K, V> evictionListener) {
+        if (maximumWeight < 1) {
+            throw new IllegalArgumentException("Cache maximum must be positive");
+        }
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_PERCENT));
+        this.mainMaximum = maximumWeight - windowMaximum;
+        this.protectedMaximum = (long) (mainMaximum * PROTECTED_PERCENT);
+        this.sketchCapacity = Math.min(maximumWeight, INITIAL_SKETCH_CAPACITY);
+        sketch.ensureCapacity(sketchCapacity);
+    }
+
+    @Override
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        if (readBuffer.offer(node)) {
+            tryMaintenance();
+        }
+        return node.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        Node<K, V> created = new Node<>(key, value, weight);
+        Node<K, V> current = data.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return created;
+            }
+            existing.value = value;
+            return existing;
+        });
+        if (current == created) {
+            afterWrite(() -> onAdd(created));
+        } else {
+            afterWrite(() -> onUpdate(current, weight));
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        Node<K, V> node = data.remove(key);
+        if (node != null) {
+            node.retired = true;
+            afterWrite(() -> onRemove(node));
+        }
+    }
+
+    @Override
+    public Collection<V> getAll() {
+        Collection<V> values = new ArrayList<>(data.size());
+        for (Node<K, V> node : data.values()) {
+            values.add(node.value);
+        }
+        return values;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Node<K, V> node : data.values()) {
+            action.accept(node.key, node.value);
+        }
+    }
+
+    @Override
+    public long size() {
+        return data.mappingCount();
+    }
+
+    @Override
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    @Override
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats;
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void tryMaintenance() {
+        if (evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void maintenance() {
+        readBuffer.drainTo(this::onAccess);
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+        weightedSize = windowWeight + mainWeight;
+    }
+
+    private void onAdd(Node<K, V> node) {
+        if (node.retired) {
+            return;
+        }
+        growSketchIfNeeded();
+        sketch.increment(node.key);
+        node.queue = Node.WINDOW;
+        window.addLast(node);
+        windowWeight += node.weight;
+        evictEntries();
+    }
+
+    private void onUpdate(Node<K, V> node, int weight) {
+        if (node.retired) {
+            return;
+        }
+        int delta = weight - node.weight;
+        node.weight = weight;
+        switch (node.queue) {
+            case Node.WINDOW -> windowWeight += delta;
+            case Node.PROBATION -> mainWeight += delta;
+            case Node.PROTECTED -> {
+                protectedWeight += delta;
+                mainWeight += delta;
+            }
+            default -> {
+                return;
+            }
+        }
+        onAccess(node);
+        evictEntries();
+        if (node.queue != Node.WINDOW && node.queue != Node.NONE) {
+            evictFromMain(node);
+        }
+    }
+
+    private void growSketchIfNeeded() {
+        long entries = data.mappingCount();
+        if (entries > sketchCapacity) {
+            sketchCapacity = 2 * entries;
+            sketch.ensureCapacity(sketchCapacity);
+        }
+    }
+
+    private void onRemove(Node<K, V> node) {
+        unlink(node);
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.retired || node.queue == Node.NONE) {
+            return;
+        }
+        sketch.increment(node.key);
+        if (node.queue == Node.WINDOW) {
+            window.moveToBack(node);
+        } else if (node.queue == Node.PROBATION) {
+            probation.unlink(node);
+            node.queue = Node.PROTECTED;
+            protectedDeque.addLast(node);
+            protectedWeight += node.weight;
+            demoteFromProtected();
+        } else {
+            protectedDeque.moveToBack(node);
+        }
+    }
+
+    private void demoteFromProtected() {
+        while (protectedWeight > protectedMaximum) {
+            Node<K, V> demoted = protectedDeque.pollFirst();
+            if (demoted == null) {
+                return;
+            }
+            protectedWeight -= demoted.weight;
+            demoted.queue = Node.PROBATION;
+            probation.addLast(demoted);
+        }
+    }
+
+    private void evictEntries() {
+        while (windowWeight > windowMaximum) {
+            Node<K, V> candidate = window.pollFirst();
+            windowWeight -= candidate.weight;
+            candidate.queue = Node.PROBATION;
+            probation.addLast(candidate);
+            mainWeight += candidate.weight;
+            evictFromMain(candidate);
+        }
+    }
+
+    private void evictFromMain(Node<K, V> candidate) {
+        while (mainWeight > mainMaximum) {
+            Node<K, V> victim = probation.peekFirst();
+            if (victim == candidate) {
+                victim = protectedDeque.peekFirst();
+            }
+            if (victim == null) {
+                evict(candidate);
+                return;
+            }
+            if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim);
+            } else {
+                evict(candidate);
+                return;
+            }
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        unlink(node);
+        if (data.remove(node.key, node)) {
+            node.retired = true;
+            stats.recordEviction(node.weight);
+            evictionListener.accept(node.key, node.value);
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW -> {
+                window.unlink(node);
+                windowWeight -= node.weight;
+            }
+            case Node.PROBATION -> {
+                probation.unlink(node);
+                mainWeight -= node.weight;
+            }
+            case Node.PROTECTED -> {
+                protectedDeque.unlink(node);
+                protectedWeight -= node.weight;
+                mainWeight -= node.weight;
+            }
+            default -> {
+                return;
+            }
+        }
+        node.queue = Node.NONE;
+    }
+
+    static final class Node<K, V> {
+        static final int NONE = 0;
+        static final int WINDOW = 1;
+        static final int PROBATION = 2;
+        static final int PROTECTED = 3;
+
+        final K key;
+        volatile V value;
+        volatile boolean retired;
+
+        int weight;
+        int queue = NONE;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    static final class AccessOrderDeque<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        Node<K, V> peekFirst() {
+            return head;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> first = head;
+            if (first != null) {
+                unlink(first);
+            }
+            return first;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != tail) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+
+        void unlink(Node<K, V> node) {
+            Node<K, V> prev = node.prev;
+            Node<K, V> next = node.next;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prev = prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+    }
+
+    /**
+     * Striped ring buffers; an offer is dropped when its stripe is full or contended,
+     * which only loses a recency hint, never an entry.
+     */
+    static final class ReadBuffer<K, V> {
+        private static final int BUFFER_SIZE = 16;
+        private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+        private final Stripe<K, V>[] stripes;
+        private final int stripeMask;
+
+        @SuppressWarnings("unchecked")
+        ReadBuffer() {
+            int processors = Runtime.getRuntime().availableProcessors();
+            int count = Integer.highestOneBit(Math.max(1, Math.min(4 * processors, 64)));
+            stripes = new Stripe[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new Stripe<>();
+            }
+            stripeMask = count - 1;
+        }
+
+        boolean offer(Node<K, V> node) {
+            int hash = System.identityHashCode(Thread.currentThread());
+            Stripe<K, V> stripe = stripes[(hash ^ (hash >>> 16)) & stripeMask];
+            long head = stripe.readCounter;
+            long tail = stripe.writeCounter.get();
+            long size = tail - head;
+            if (size >= BUFFER_SIZE) {
+                return true;
+            }
+            if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+                stripe.slots.lazySet((int) (tail & BUFFER_MASK), node);
+                return size + 1 >= BUFFER_SIZE;
+            }
+            return false;
+        }
+
+        void drainTo(Consumer<Node<K, V>> consumer) {
+            for (Stripe<K, V> stripe : stripes) {
+                long head = stripe.readCounter;
+                long tail = stripe.writeCounter.get();
+                while (head < tail) {
+                    int index = (int) (head & BUFFER_MASK);
+                    Node<K, V> node = stripe.slots.get(index);
+                    if (node == null) {
+                        break;
+                    }
+                    stripe.slots.lazySet(index, null);
+                    consumer.accept(node);
+                    head++;
+                }
+                stripe.readCounter = head;
+            }
+        }
+    }
+
+    static final class Stripe<K, V> {
+        final AtomicReferenceArray<Node<K, V>> slots =
+                new AtomicReferenceArray<>(ReadBuffer.BUFFER_SIZE);
+        final AtomicLong writeCounter = new AtomicLong();
+        volatile long readCounter;
+    }
+}
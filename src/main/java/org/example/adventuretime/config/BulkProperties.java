@@ -0,0 +1,15 @@
+package org.example.adventuretime.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "adventuretime.bulk")
+public class BulkProperties {
+
+    // Rows per JDBC batch, also how many entities are flushed and detached at a time.
+    private int batchSize = 500;
+    // How long GET /api/tours/export may stream before the request is timed out.
+    private Duration exportTimeout = Duration.ofMinutes(30);
+}
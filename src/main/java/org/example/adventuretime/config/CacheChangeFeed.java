@@ -0,0 +1,174 @@
+package org.example.adventuretime.config;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import org.example.adventuretime.cache.CacheChangeListener;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.model.CacheChange;
+import org.example.adventuretime.repository.CacheChangeLog;
+import org.example.adventuretime.repository.CacheChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cross-instance invalidation through the {@code cache_change_log} table. Services append a row
+ * inside their write transaction; every instance polls for rows past its watermark and evicts
+ * the affected keys, then hands them to the {@link CacheChangeListener}s, which keep the search
+ * indexes current. Rows this instance wrote itself are skipped, they were invalidated locally.
+ *
+ * <p>IDENTITY values become visible in commit order rather than ID order, so a smaller ID can
+ * show up after larger ones. IDs above the watermark are remembered, and the watermark only
+ * jumps over a gap that stayed open for {@code gap-timeout}, e.g. after a rolled back insert.
+ * The skipped range is re-read on every poll for the {@code retention} window, so a write
+ * whose transaction was merely slow to commit is still applied.
+ */
+@Component
+public class CacheChangeFeed {
+    private static final Logger logger = LoggerFactory.getLogger(CacheChangeFeed.class);
+
+    private final String node = UUID.randomUUID().toString();
+    private final CacheConfig cacheConfig;
+    private final CacheChangeRepository changeRepository;
+    private final CacheChangeLog changeLog;
+    private final BulkProperties bulkProperties;
+    private final CacheProperties.ChangeLog settings;
+    private final List<CacheChangeListener> listeners;
+
+    private final TreeSet<Long> seenAboveWatermark = new TreeSet<>();
+    private long watermark = -1;
+    private long gapSince;
+    private final List<Gap> skipped = new ArrayList<>();
+
+    public CacheChangeFeed(CacheConfig cacheConfig, CacheChangeRepository changeRepository,
+                           CacheChangeLog changeLog, BulkProperties bulkProperties,
+                           CacheProperties properties, List<CacheChangeListener> listeners) {
+        this.cacheConfig = cacheConfig;
+        this.changeRepository = changeRepository;
+        this.changeLog = changeLog;
+        this.bulkProperties = bulkProperties;
+        this.settings = properties.getChangeLog();
+        this.listeners = listeners;
+    }
+
+    public void publish(EntityType type, Long id) {
+        if (settings.isEnabled()) {
+            changeRepository.save(new CacheChange(type, id, node));
+        }
+    }
+
+    // Rows a bulk write inserted. Every ID gets its own row, so the other instances also drop it
+    // from their negative caches and search indexes.
+    public void publishInserts(EntityType type, Collection<Long> ids) {
+        if (settings.isEnabled() && !ids.isEmpty()) {
+            changeLog.insert(ids.stream().map(id -> new CacheChange(type, id, node)).toList(),
+                    bulkProperties.getBatchSize());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${adventuretime.cache.change-log.poll-interval:1s}")
+    public synchronized void poll() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (watermark < 0) {
+            watermark = changeRepository.findLastId();
+            return;
+        }
+        List<CacheChange> changes = changeRepository.findAfter(watermark,
+                PageRequest.of(0, settings.getBatchSize()));
+        int evicted = 0;
+        for (CacheChange change : changes) {
+            if (seenAboveWatermark.add(change.getId()) && apply(change)) {
+                evicted++;
+            }
+        }
+        evicted += rereadSkipped();
+        advanceWatermark();
+        if (evicted > 0) {
+            logger.debug("Evicted {} entries changed on other instances", evicted);
+        }
+    }
+
+    private boolean apply(CacheChange change) {
+        if (node.equals(change.getNode())) {
+            return false;
+        }
+        evict(change.getEntityType(), change.getEntityId());
+        return true;
+    }
+
+    // Gaps are dropped once filled or once their rows would have been deleted by the cleanup.
+    private int rereadSkipped() {
+        long now = System.nanoTime();
+        skipped.removeIf(gap -> now - gap.skippedAt() >= settings.getRetention().toNanos());
+        int evicted = 0;
+        for (Gap gap : skipped) {
+            for (CacheChange change : changeRepository.findBetween(gap.from(), gap.to())) {
+                if (gap.seen().add(change.getId()) && apply(change)) {
+                    evicted++;
+                }
+            }
+        }
+        skipped.removeIf(Gap::filled);
+        return evicted;
+    }
+
+    private void evict(EntityType type, Long id) {
+        switch (type) {
+            case TOUR -> {
+                cacheConfig.invalidateTour(id);
+                cacheConfig.invalidateToursByTransport();
+            }
+            case COUNTRY -> cacheConfig.invalidateCountry(id);
+            case TRANSPORT -> {
+                cacheConfig.invalidateTransport(id);
+                cacheConfig.invalidateToursByTransport();
+            }
+        }
+        listeners.forEach(listener -> listener.changed(type, id));
+    }
+
+    private void advanceWatermark() {
+        while (!seenAboveWatermark.isEmpty()) {
+            long next = seenAboveWatermark.first();
+            if (next != watermark + 1) {
+                long now = System.nanoTime();
+                if (gapSince == 0) {
+                    gapSince = now;
+                    return;
+                }
+                if (now - gapSince < settings.getGapTimeout().toNanos()) {
+                    return;
+                }
+                skipped.add(new Gap(watermark + 1, next - 1, now, new HashSet<>()));
+                logger.debug("Skipped change log IDs {} to {}", watermark + 1, next - 1);
+            }
+            watermark = next;
+            seenAboveWatermark.pollFirst();
+            gapSince = 0;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${adventuretime.cache.change-log.cleanup-interval:10m}")
+    public void deleteExpired() {
+        if (settings.isEnabled()) {
+            changeRepository.deleteCreatedBefore(Instant.now().minus(settings.getRetention()));
+        }
+    }
+
+    private record Gap(long from, long to, long skippedAt, Set<Long> seen) {
+
+        boolean filled() {
+            return seen.size() > to - from;
+        }
+    }
+}
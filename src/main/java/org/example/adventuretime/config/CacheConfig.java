@@ -1,76 +1,363 @@
 package org.example.adventuretime.config;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import org.example.adventuretime.cache.CacheKey;
+import org.example.adventuretime.cache.CacheRegion;
+import org.example.adventuretime.cache.DependencyIndex;
+import org.example.adventuretime.cache.DtoReferences;
+import org.example.adventuretime.cache.DtoWeights;
+import org.example.adventuretime.cache.EntityCache;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.cache.Freshness;
+import org.example.adventuretime.cache.JsonBytes;
+import org.example.adventuretime.cache.JsonCache;
+import org.example.adventuretime.cache.KeyedSnapshot;
+import org.example.adventuretime.cache.LruCache;
+import org.example.adventuretime.cache.NameIndex;
+import org.example.adventuretime.cache.NegativeCache;
+import org.example.adventuretime.cache.TinyLfuCache;
+import org.example.adventuretime.cache.Weigher;
+import org.example.adventuretime.dto.CacheUsageDto;
 import org.example.adventuretime.dto.CountryDto;
 import org.example.adventuretime.dto.TourDto;
 import org.example.adventuretime.dto.TransportDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @Component
 public class CacheConfig {
-    private static final int MAX_TOUR_CACHE_SIZE = 100;
-    private static final int MAX_COUNTRY_CACHE_SIZE = 100;
-    private static final int MAX_TRANSPORT_CACHE_SIZE = 100;
     private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
 
-    private final LruCache<Long, TourDto> tourCache = new LruCache<>(MAX_TOUR_CACHE_SIZE);
-    private final LruCache<Long, CountryDto> countryCache = new LruCache<>(MAX_COUNTRY_CACHE_SIZE);
-    private final LruCache<Long, TransportDto> transportCache =
-            new LruCache<>(MAX_TRANSPORT_CACHE_SIZE);
+    // Request attribute set when a response is built from an entry past its TTL.
+    public static final String STALE_ATTRIBUTE = CacheConfig.class.getName() + ".STALE";
+
+    // Distinct transport names looked up; past this the lookups go to the database uncached.
+    private static final int TRANSPORT_LOOKUP_MAX_NAMES = 1024;
+
+    private final DependencyIndex dependencies = new DependencyIndex();
+    private final KeyedSnapshot<String, List<Long>> tourIdsByTransport =
+            new KeyedSnapshot<>(TRANSPORT_LOOKUP_MAX_NAMES);
+    private final AtomicLong invalidations = new AtomicLong();
+    private final boolean cacheTourIdsByTransport;
+
+    private final CacheRegion<TourDto> tours;
+    private final CacheRegion<CountryDto> countries;
+    private final CacheRegion<TransportDto> transports;
+    private final ObjectMapper objectMapper;
+    private final Executor refresher;
+
+    public CacheConfig(CacheProperties properties, ObjectMapper objectMapper,
+                       @Qualifier("taskExecutor") Executor taskExecutor,
+                       PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.cacheTourIdsByTransport = properties.isTourIdsByTransport();
+        this.refresher = refresher(taskExecutor, transactionManager);
+        this.tours = createRegion(properties, EntityType.TOUR, properties.getTour(),
+                DtoWeights::tour, DtoReferences::tour);
+        this.countries = createRegion(properties, EntityType.COUNTRY, properties.getCountry(),
+                DtoWeights::country, DtoReferences::country);
+        this.transports = createRegion(properties, EntityType.TRANSPORT,
+                properties.getTransport(), DtoWeights::transport, DtoReferences::transport);
+        logger.info("Entity caches use the {} implementation, budgets: tours {}, countries {}, "
+                        + "transports {}", properties.getType(), properties.getTour().getMaxWeight(),
+                properties.getCountry().getMaxWeight(), properties.getTransport().getMaxWeight());
+    }
+
+    private <V> CacheRegion<V> createRegion(CacheProperties properties, EntityType type,
+                                            CacheProperties.Region region,
+                                            Weigher<Long, V> weigher,
+                                            Function<V, Set<CacheKey>> references) {
+        Freshness freshness = new Freshness(region.getTtl(), properties.getRefresh().getAhead(),
+                properties.getRefresh().getMaxStale(), System::nanoTime);
+        BiConsumer<Long, V> onEviction = (id, value) -> {
+            dependencies.unregister(new CacheKey(type, id));
+            freshness.forget(id);
+        };
+        EntityCache<Long, V> cache = createCache(properties.getType(),
+                region.getMaxWeight().toBytes(), weigher, onEviction);
+        long jsonMaxWeight = region.getJsonMaxWeight().toBytes();
+        EntityCache<Long, JsonBytes> jsonCache = jsonMaxWeight > 0
+                ? createCache(properties.getType(), jsonMaxWeight, DtoWeights::json,
+                        (id, value) -> { })
+                : null;
+        CacheProperties.Negative negative = properties.getNegative();
+        NegativeCache<Long> missing =
+                new NegativeCache<>(negative.getTtl(), negative.getMaxEntries());
+        return new CacheRegion<>(type, cache, weigher, region.getCollectionMaxWeight().toBytes(),
+                missing, new JsonCache<>(jsonCache, this::toJson, properties.isGzipJson()),
+                references, dependencies, invalidations, freshness, refresher,
+                CacheConfig::markStale);
+    }
+
+    // The loaders map lazy associations, so background reloads get a session of their own.
+    private static Executor refresher(Executor taskExecutor,
+                                      PlatformTransactionManager transactionManager) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return task -> taskExecutor.execute(() -> readOnly.executeWithoutResult(status ->
+                task.run()));
+    }
+
+    private static void markStale() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(STALE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <V> EntityCache<Long, V> createCache(String cacheType, long maxWeight,
+                                                        Weigher<Long, V> weigher,
+                                                        BiConsumer<Long, V> onEviction) {
+        return switch (cacheType.toLowerCase()) {
+            case "lru" -> new LruCache<>(maxWeight, weigher, onEviction);
+            case "tinylfu" -> new TinyLfuCache<>(maxWeight, weigher, onEviction);
+            default -> throw new IllegalArgumentException("Unknown cache type: " + cacheType);
+        };
+    }
+
+    public List<CacheRegion<?>> getRegions() {
+        return List.of(tours, countries, transports);
+    }
+
+    public List<CacheUsageDto> getUsage() {
+        return List.of(tours.usage(), countries.usage(), transports.usage());
+    }
 
     public TourDto getTour(Long id) {
         logger.debug("Запрос к кэшу туров для ID: {}", id);
-        return tourCache.get(id);
+        return tours.get(id);
+    }
+
+    public TourDto loadTour(Long id, Function<Long, TourDto> loader) {
+        return tours.load(id, loader);
+    }
+
+    public JsonBytes loadTourJson(Long id, Function<Long, TourDto> loader) {
+        return tours.loadJson(id, loader);
+    }
+
+    public void restoreTour(Long id, TourDto tourDto, BooleanSupplier isCurrent) {
+        tours.restore(id, tourDto, isCurrent);
     }
 
     public void putTour(Long id, TourDto tourDto) {
-        tourCache.put(id, tourDto);
+        tours.put(id, tourDto);
     }
 
-    public void removeTour(Long id) {
-        tourCache.remove(id);
+    public void invalidateTour(Long id) {
+        invalidate(CacheKey.tour(id));
+        invalidateTourCollections();
     }
 
-    public Collection<TourDto> getAllTours() {
+    public List<TourDto> getAllTours() {
         logger.debug("Запрос всех туров из кэша");
-        return tourCache.getAll();
+        return tours.getAll();
+    }
+
+    public long getAllToursVersion() {
+        return tours.getAllVersion();
+    }
+
+    public void putAllTours(long version, List<TourDto> list) {
+        tours.putAll(version, list);
+    }
+
+    public void invalidateTourCollections() {
+        runNowAndAfterCompletion(() -> {
+            tours.invalidateAll();
+            countries.invalidateAll();
+        });
+    }
+
+    // Tour IDs per transport name, keyed the way the column collation compares names.
+    public List<Long> getTourIdsByTransport(String name) {
+        if (!cacheTourIdsByTransport) {
+            return null;
+        }
+        return tourIdsByTransport.get(NameIndex.normalize(name));
+    }
+
+    public long getTourIdsByTransportVersion() {
+        return tourIdsByTransport.version();
+    }
+
+    public void putTourIdsByTransport(long version, String name, List<Long> ids) {
+        if (!cacheTourIdsByTransport) {
+            return;
+        }
+        tourIdsByTransport.publish(version, NameIndex.normalize(name), List.copyOf(ids));
+    }
+
+    // Called with the transport names a tour moved between or a transport was renamed between.
+    public void invalidateToursByTransport(String... names) {
+        runNowAndAfterCompletion(() -> {
+            for (String name : names) {
+                if (name != null) {
+                    tourIdsByTransport.invalidate(NameIndex.normalize(name));
+                }
+            }
+        });
+    }
+
+    public void invalidateToursByTransport() {
+        runNowAndAfterCompletion(tourIdsByTransport::invalidateAll);
     }
 
     public CountryDto getCountry(Long id) {
         logger.debug("Запрос к кэшу стран для ID: {}", id);
-        return countryCache.get(id);
+        return countries.get(id);
+    }
+
+    public CountryDto loadCountry(Long id, Function<Long, CountryDto> loader) {
+        return countries.load(id, loader);
+    }
+
+    public JsonBytes loadCountryJson(Long id, Function<Long, CountryDto> loader) {
+        return countries.loadJson(id, loader);
+    }
+
+    public void restoreCountry(Long id, CountryDto countryDto, BooleanSupplier isCurrent) {
+        countries.restore(id, countryDto, isCurrent);
     }
 
     public void putCountry(Long id, CountryDto countryDto) {
-        countryCache.put(id, countryDto);
+        countries.put(id, countryDto);
     }
 
-    public void removeCountry(Long id) {
-        countryCache.remove(id);
+    public void invalidateCountry(Long id) {
+        invalidate(CacheKey.country(id));
+        invalidateCountryCollections();
     }
 
     public TransportDto getTransport(Long id) {
         logger.debug("Запрос к кэшу транспорта для ID: {}", id);
-        return transportCache.get(id);
+        return transports.get(id);
+    }
+
+    public TransportDto loadTransport(Long id, Function<Long, TransportDto> loader) {
+        return transports.load(id, loader);
+    }
+
+    public void restoreTransport(Long id, TransportDto transportDto,
+                                 BooleanSupplier isCurrent) {
+        transports.restore(id, transportDto, isCurrent);
     }
 
     public void putTransport(Long id, TransportDto transportDto) {
-        transportCache.put(id, transportDto);
+        transports.put(id, transportDto);
     }
 
-    public void removeTransport(Long id) {
-        transportCache.remove(id);
+    public void invalidateTransport(Long id) {
+        invalidate(CacheKey.transport(id));
+        invalidateTransportCollections();
     }
 
-    public Collection<TransportDto> getAllTransports() {
+    public List<TransportDto> getAllTransports() {
         logger.debug("Запрос всех транспортов из кэша");
-        return transportCache.getAll();
+        return transports.getAll();
+    }
+
+    public long getAllTransportsVersion() {
+        return transports.getAllVersion();
     }
 
-    public Collection<CountryDto> getAllCountries() {
+    public void putAllTransports(long version, List<TransportDto> list) {
+        transports.putAll(version, list);
+    }
+
+    public void invalidateTransportCollections() {
+        runNowAndAfterCompletion(() -> {
+            transports.invalidateAll();
+            tours.invalidateAll();
+            countries.invalidateAll();
+        });
+    }
+
+    public List<CountryDto> getAllCountries() {
         logger.debug("Запрос всех стран из кэша");
-        return countryCache.getAll();
+        return countries.getAll();
+    }
+
+    public long getAllCountriesVersion() {
+        return countries.getAllVersion();
+    }
+
+    public void putAllCountries(long version, List<CountryDto> list) {
+        countries.putAll(version, list);
+    }
+
+    public void invalidateCountryCollections() {
+        runNowAndAfterCompletion(() -> {
+            countries.invalidateAll();
+            tours.invalidateAll();
+        });
+    }
+
+    // Inserted rows may have been looked up, and remembered as missing, before their transaction
+    // committed, so they are forgotten again once it has finished.
+    public void forgetMissing(EntityType type, Collection<Long> ids) {
+        runNowAndAfterCompletion(() -> region(type).forgetMissing(ids));
+    }
+
+    // Drops the entry itself and every cached DTO that embeds a copy of it, instead of
+    // re-mapping the whole neighbourhood on each write. Bumping the epoch makes loads that
+    // started before the write discard what they read.
+    private void invalidate(CacheKey key) {
+        runNowAndAfterCompletion(() -> {
+            invalidations.incrementAndGet();
+            region(key.type()).evict(key.id());
+            for (CacheKey dependent : dependencies.removeDependents(key)) {
+                region(dependent.type()).evict(dependent.id());
+            }
+        });
+    }
+
+    private CacheRegion<?> region(EntityType type) {
+        return switch (type) {
+            case TOUR -> tours;
+            case COUNTRY -> countries;
+            case TRANSPORT -> transports;
+        };
+    }
+
+    // A reader may rebuild a snapshot while the writing transaction is still open,
+    // so the invalidation is repeated once the transaction has finished.
+    private static void runNowAndAfterCompletion(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            action.run();
+                        }
+                    });
+        }
     }
-}
\ No newline at end of file
+}
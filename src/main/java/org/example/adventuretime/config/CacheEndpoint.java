@@ -0,0 +1,23 @@
+package org.example.adventuretime.config;
+
+import java.util.List;
+import org.example.adventuretime.dto.CacheUsageDto;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "entitycaches")
+public class CacheEndpoint {
+
+    private final CacheConfig cacheConfig;
+
+    public CacheEndpoint(CacheConfig cacheConfig) {
+        this.cacheConfig = cacheConfig;
+    }
+
+    @ReadOperation
+    public List<CacheUsageDto> caches() {
+        return cacheConfig.getUsage();
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.adventuretime.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.example.adventuretime.cache.CacheRegion;
+import org.example.adventuretime.cache.CacheStats;
+import org.example.adventuretime.cache.InMemoryIndex;
+import org.example.adventuretime.cache.JsonCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the counters each cache region records on its own hot paths as Micrometer meters,
+ * following the names of Micrometer's cache binders ({@code cache.gets}, {@code cache.evictions}).
+ * Meters read the counters lazily at scrape time, so the request path pays nothing extra. The
+ * search indexes have no budget; their entry counts and estimated sizes are published as
+ * {@code cache.index.size} and {@code cache.index.weight}.
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private final CacheConfig cacheConfig;
+    private final List<InMemoryIndex> indexes;
+
+    public CacheMetrics(CacheConfig cacheConfig, List<InMemoryIndex> indexes) {
+        this.cacheConfig = cacheConfig;
+        this.indexes = indexes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CacheRegion<?> region : cacheConfig.getRegions()) {
+            Tags tags = Tags.of("cache", region.name(), "tier", "dto");
+            bindStats(registry, tags, region.stats());
+            gauge(registry, "cache.size", tags, region, CacheRegion::size);
+            gauge(registry, "cache.weight", tags, region, CacheRegion::weightedSize);
+            gauge(registry, "cache.max.weight", tags, region, CacheRegion::maximumWeight);
+            gauge(registry, "cache.restored", tags, region, CacheRegion::restoredCount);
+            Tags collectionTags = Tags.of("cache", region.name(), "tier", "collection");
+            gauge(registry, "cache.weight", collectionTags, region, CacheRegion::collectionWeight);
+            gauge(registry, "cache.max.weight", collectionTags, region,
+                    CacheRegion::collectionMaximumWeight);
+            gauge(registry, "cache.weight", Tags.of("cache", region.name(), "tier", "restored"),
+                    region, CacheRegion::restoredWeight);
+            counter(registry, "cache.loads.coalesced", tags, region,
+                    CacheRegion::coalescedLoadCount);
+            counter(registry, "cache.negative.hits", tags, region,
+                    CacheRegion::negativeHitCount);
+            FunctionTimer.builder("cache.load.duration", region,
+                            CacheRegion::loadCount, CacheRegion::totalLoadTimeNanos,
+                            TimeUnit.NANOSECONDS)
+                    .tags(tags)
+                    .description("Time spent loading entries the cache did not hold")
+                    .register(registry);
+            counter(registry, "cache.load.failures", tags, region, CacheRegion::loadFailureCount);
+            counter(registry, "cache.refreshes", tags, region, CacheRegion::refreshCount);
+            counter(registry, "cache.stale.served", tags, region, CacheRegion::staleServedCount);
+
+            JsonCache<?> json = region.json();
+            if (json.stats() != null) {
+                Tags jsonTags = Tags.of("cache", region.name(), "tier", "json");
+                bindStats(registry, jsonTags, json.stats());
+                gauge(registry, "cache.size", jsonTags, json, JsonCache::size);
+                gauge(registry, "cache.weight", jsonTags, json, JsonCache::weightedSize);
+            }
+        }
+        for (InMemoryIndex index : indexes) {
+            Tags tags = Tags.of("index", index.indexName());
+            gauge(registry, "cache.index.size", tags, index, InMemoryIndex::entryCount);
+            gauge(registry, "cache.index.weight", tags, index, InMemoryIndex::weightedSize);
+        }
+    }
+
+    private static void bindStats(MeterRegistry registry, Tags tags, CacheStats stats) {
+        counter(registry, "cache.gets", tags.and("result", "hit"), stats, CacheStats::hitCount);
+        counter(registry, "cache.gets", tags.and("result", "miss"), stats, CacheStats::missCount);
+        counter(registry, "cache.evictions", tags, stats, CacheStats::evictionCount);
+        counter(registry, "cache.eviction.weight", tags, stats, CacheStats::evictionWeight);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, Tags tags, T source,
+                                    ToDoubleFunction<T> count) {
+        FunctionCounter.builder(name, source, count).tags(tags).register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, Tags tags, T source,
+                                  ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value).tags(tags).register(registry);
+    }
+}
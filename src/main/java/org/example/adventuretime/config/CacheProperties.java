@@ -0,0 +1,93 @@
+package org.example.adventuretime.config;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Cache settings. Heap taken by caching is bounded per region by the sum of its three budgets:
+ * DTOs ({@code max-weight}), their JSON ({@code json-max-weight}) and the full-collection
+ * list ({@code collection-max-weight}). On top come entries restored from the snapshot, kept
+ * only until they are requested or {@code snapshot.restored-ttl} has passed, and the
+ * in-memory search indexes, which hold every row and are not bounded; their estimated size is
+ * published as {@code cache.index.weight}. All weights are estimates, see {@code HeapSizes}.
+ */
+@Data
+@ConfigurationProperties(prefix = "adventuretime.cache")
+public class CacheProperties {
+
+    private String type = "tinylfu";
+    private boolean gzipJson = false;
+    // Caches the tour IDs per transport name; off, every by-transport lookup runs its query.
+    private boolean tourIdsByTransport = true;
+    private Region tour = new Region(DataSize.ofMegabytes(48), DataSize.ofMegabytes(16),
+            DataSize.ofMegabytes(16), Duration.ofMinutes(10));
+    private Region country = new Region(DataSize.ofMegabytes(24), DataSize.ofMegabytes(8),
+            DataSize.ofMegabytes(8), Duration.ofMinutes(30));
+    private Region transport = new Region(DataSize.ofMegabytes(4), DataSize.ofBytes(0),
+            DataSize.ofMegabytes(1), Duration.ofHours(1));
+    private Refresh refresh = new Refresh();
+    private Negative negative = new Negative();
+    private Warmup warmup = new Warmup();
+    private Snapshot snapshot = new Snapshot();
+    private ChangeLog changeLog = new ChangeLog();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Region {
+        private DataSize maxWeight;
+        // Budget of the serialized JSON tier, zero disables it.
+        private DataSize jsonMaxWeight;
+        // Budget of the findAll list; a larger table is read from the database every time.
+        private DataSize collectionMaxWeight;
+        // Time to live of an entry, zero keeps entries until they are evicted.
+        private Duration ttl;
+    }
+
+    @Data
+    public static class Refresh {
+        // Share of the TTL after which a requested entry is reloaded in the background.
+        private double ahead = 0.8;
+        // How long past its TTL an entry may still be served when the database is unreachable.
+        private Duration maxStale = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Negative {
+        private Duration ttl = Duration.ofSeconds(30);
+        private int maxEntries = 10_000;
+    }
+
+    @Data
+    public static class Warmup {
+        private boolean enabled = true;
+        private int tours = 1_000;
+        private int countries = 500;
+        private int transports = 200;
+        private int batchSize = 100;
+        private int parallelism = 4;
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Snapshot {
+        private boolean enabled = true;
+        private String path = "cache/entities.snapshot";
+        private Duration interval = Duration.ofMinutes(5);
+        private Duration restoredTtl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class ChangeLog {
+        private boolean enabled = true;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private int batchSize = 500;
+        private Duration gapTimeout = Duration.ofSeconds(10);
+        private Duration retention = Duration.ofHours(1);
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+    }
+}
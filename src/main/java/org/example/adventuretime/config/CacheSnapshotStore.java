@@ -0,0 +1,219 @@
+package org.example.adventuretime.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.example.adventuretime.cache.CacheKey;
+import org.example.adventuretime.cache.CacheRegion;
+import org.example.adventuretime.cache.DtoReferences;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.TransportDto;
+import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TourRepository;
+import org.example.adventuretime.repository.TransportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Persists the entity caches to a local file periodically and on shutdown, and reads them back
+ * at startup. Restored DTOs are not served blindly: each one carries the versions of every
+ * entity copied into it, and is compared with the database on its first request. Those are the
+ * {@code @Version} columns of the entities, which Hibernate bumps on every update.
+ *
+ * <p>File layout (gzip'd): magic, format, then per entry the entity type, ID and the
+ * length-prefixed JSON of the DTO, terminated by {@link #END}.
+ */
+@Component
+@Order(0)
+public class CacheSnapshotStore implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotStore.class);
+
+    private static final int MAGIC = 0x41544353;
+    private static final int FORMAT = 1;
+    private static final int END = -1;
+
+    private final CacheConfig cacheConfig;
+    private final CacheProperties.Snapshot snapshot;
+    private final ObjectMapper objectMapper;
+    private final TourRepository tourRepository;
+    private final CountryRepository countryRepository;
+    private final TransportRepository transportRepository;
+
+    public CacheSnapshotStore(CacheConfig cacheConfig, CacheProperties properties,
+                              ObjectMapper objectMapper, TourRepository tourRepository,
+                              CountryRepository countryRepository,
+                              TransportRepository transportRepository) {
+        this.cacheConfig = cacheConfig;
+        this.snapshot = properties.getSnapshot();
+        this.objectMapper = objectMapper;
+        this.tourRepository = tourRepository;
+        this.countryRepository = countryRepository;
+        this.transportRepository = transportRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Path path = Path.of(snapshot.getPath());
+        if (!snapshot.isEnabled() || !Files.isReadable(path)) {
+            return;
+        }
+        long start = System.nanoTime();
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                logger.warn("Ignoring cache snapshot {} written in an unknown format", path);
+                return;
+            }
+            int type;
+            while ((type = in.readByte()) != END) {
+                long id = in.readLong();
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                restore(EntityType.values()[type], id, json);
+                restored++;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cache snapshot {} could not be read, {} entries restored: {}",
+                    path, restored, e.getMessage());
+            return;
+        }
+        logger.info("Restored {} cache entries from {} in {} ms, validated on first use",
+                restored, path, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void restore(EntityType type, Long id, byte[] json) throws IOException {
+        switch (type) {
+            case TOUR -> {
+                TourDto tour = objectMapper.readValue(json, TourDto.class);
+                cacheConfig.restoreTour(id, tour, () -> DtoReferences.tourVersions(tour)
+                        .equals(versions(EntityType.TOUR, id,
+                                tourRepository.findVersionStamps(id))));
+            }
+            case COUNTRY -> {
+                CountryDto country = objectMapper.readValue(json, CountryDto.class);
+                cacheConfig.restoreCountry(id, country, () -> DtoReferences
+                        .countryVersions(country).equals(versions(EntityType.COUNTRY, id,
+                                countryRepository.findVersionStamps(id))));
+            }
+            case TRANSPORT -> {
+                TransportDto transport = objectMapper.readValue(json, TransportDto.class);
+                cacheConfig.restoreTransport(id, transport, () -> transportRepository
+                        .findVersion(id).map(version -> version.equals(transport.getVersion()))
+                        .orElse(false));
+            }
+        }
+    }
+
+    // Rows are (root version, linked id, linked version, transport id, transport version).
+    private static Map<CacheKey, Long> versions(EntityType rootType, Long id,
+                                                List<Object[]> rows) {
+        Map<CacheKey, Long> versions = new HashMap<>();
+        EntityType linkedType = rootType == EntityType.TOUR
+                ? EntityType.COUNTRY : EntityType.TOUR;
+        for (Object[] row : rows) {
+            versions.put(new CacheKey(rootType, id), (Long) row[0]);
+            if (row[1] != null) {
+                versions.put(new CacheKey(linkedType, (Long) row[1]), (Long) row[2]);
+            }
+            if (row[3] != null) {
+                versions.put(CacheKey.transport((Long) row[3]), (Long) row[4]);
+            }
+        }
+        return versions;
+    }
+
+    @Scheduled(fixedDelayString = "${adventuretime.cache.snapshot.interval:5m}",
+            initialDelayString = "${adventuretime.cache.snapshot.interval:5m}")
+    public void writePeriodically() {
+        write();
+    }
+
+    // Restored entries sit outside the weight budget until they are requested; the ones still
+    // unclaimed by then are dropped and load from the database like any other miss.
+    @Scheduled(fixedDelayString = "${adventuretime.cache.snapshot.restored-ttl:10m}",
+            initialDelayString = "${adventuretime.cache.snapshot.restored-ttl:10m}")
+    public void dropUnclaimedRestored() {
+        long dropped = 0;
+        for (CacheRegion<?> region : cacheConfig.getRegions()) {
+            dropped += region.dropRestored();
+        }
+        if (dropped > 0) {
+            logger.info("Dropped {} restored cache entries not requested within {}", dropped,
+                    snapshot.getRestoredTtl());
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        write();
+    }
+
+    // Written to a temporary file first so a crash never leaves a truncated snapshot behind.
+    void write() {
+        if (!snapshot.isEnabled()) {
+            return;
+        }
+        Path path = Path.of(snapshot.getPath()).toAbsolutePath();
+        long start = System.nanoTime();
+        int[] written = {0};
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), "entities", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                for (CacheRegion<?> region : cacheConfig.getRegions()) {
+                    region.forEach((id, value) -> {
+                        writeEntry(out, region.type(), id, value);
+                        written[0]++;
+                    });
+                }
+                out.writeByte(END);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Cache snapshot {} could not be written: {}", path, e.getMessage());
+            return;
+        }
+        logger.info("Wrote {} cache entries to {} in {} ms", written[0], path,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void writeEntry(DataOutputStream out, EntityType type, Long id, Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            out.writeByte(type.ordinal());
+            out.writeLong(id);
+            out.writeInt(json.length);
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
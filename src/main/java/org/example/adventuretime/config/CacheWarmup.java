@@ -0,0 +1,136 @@
+package org.example.adventuretime.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.example.adventuretime.mapper.CountryMapper;
+import org.example.adventuretime.mapper.TourMapper;
+import org.example.adventuretime.mapper.TransportMapper;
+import org.example.adventuretime.model.Country;
+import org.example.adventuretime.model.Tour;
+import org.example.adventuretime.model.Transport;
+import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TourRepository;
+import org.example.adventuretime.repository.TransportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills the entity caches after a deploy. Spring Boot switches readiness to ACCEPTING_TRAFFIC
+ * only once every runner has returned, so the readiness probe stays down until this is done.
+ * Visit counts live in memory and do not survive a restart, so the first N IDs are loaded.
+ */
+@Component
+public class CacheWarmup implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmup.class);
+
+    private final CacheConfig cacheConfig;
+    private final CacheProperties.Warmup warmup;
+    private final TourRepository tourRepository;
+    private final CountryRepository countryRepository;
+    private final TransportRepository transportRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CacheWarmup(CacheConfig cacheConfig, CacheProperties properties,
+                       TourRepository tourRepository, CountryRepository countryRepository,
+                       TransportRepository transportRepository,
+                       PlatformTransactionManager transactionManager) {
+        this.cacheConfig = cacheConfig;
+        this.warmup = properties.getWarmup();
+        this.tourRepository = tourRepository;
+        this.countryRepository = countryRepository;
+        this.transportRepository = transportRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!warmup.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicInteger tours = new AtomicInteger();
+        AtomicInteger countries = new AtomicInteger();
+        AtomicInteger transports = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, warmup.getParallelism()), CacheWarmup::newThread);
+        try {
+            List<Future<?>> batches = new ArrayList<>();
+            submit(executor, batches, warmup.getTours(), tourRepository::findIds, ids -> {
+                List<Tour> loaded = tourRepository.findWithCountriesAndTransportByIdIn(ids);
+                loaded.forEach(tour -> cacheConfig.putTour(tour.getId(), TourMapper.toDto(tour)));
+                tours.addAndGet(loaded.size());
+            });
+            submit(executor, batches, warmup.getCountries(), countryRepository::findIds, ids -> {
+                List<Country> loaded = countryRepository.findWithToursByIdIn(ids);
+                loaded.forEach(country ->
+                        cacheConfig.putCountry(country.getId(), CountryMapper.toDto(country)));
+                countries.addAndGet(loaded.size());
+            });
+            submit(executor, batches, warmup.getTransports(), transportRepository::findIds, ids -> {
+                List<Transport> loaded = transportRepository.findAllById(ids);
+                loaded.forEach(transport -> cacheConfig.putTransport(transport.getId(),
+                        TransportMapper.toDto(transport)));
+                transports.addAndGet(loaded.size());
+            });
+            awaitAll(batches, start + warmup.getTimeout().toNanos());
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("Cache warm-up loaded {} tours, {} countries and {} transports in {} ms",
+                tours.get(), countries.get(), transports.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void submit(ExecutorService executor, List<Future<?>> batches, int limit,
+                        Function<PageRequest, List<Long>> findIds,
+                        Consumer<List<Long>> loadBatch) {
+        if (limit <= 0) {
+            return;
+        }
+        List<Long> ids = findIds.apply(PageRequest.of(0, limit));
+        int batchSize = Math.max(1, warmup.getBatchSize());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            batches.add(executor.submit(() -> readOnlyTransaction.executeWithoutResult(status ->
+                    loadBatch.accept(batch))));
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> batches, long deadline) {
+        for (Future<?> batch : batches) {
+            try {
+                batch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                logger.warn("Cache warm-up timed out, serving with a partially filled cache");
+                return;
+            } catch (ExecutionException e) {
+                logger.warn("Cache warm-up batch failed: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "CacheWarmup");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
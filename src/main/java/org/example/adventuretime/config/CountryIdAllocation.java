@@ -0,0 +1,44 @@
+package org.example.adventuretime.config;
+
+import org.example.adventuretime.model.Country;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the country ID allocator ahead of the rows already in the table. Countries used to get
+ * IDENTITY values, so on an existing database the allocator row starts below {@code MAX(id)}.
+ * Runs once the context is built and before the web server accepts requests.
+ *
+ * <p>The pooled optimizer hands out no ID below {@code next_val - allocation + 1} for a stored
+ * {@code next_val}, so the counter is set to at least {@code MAX(id) + allocation}.
+ */
+@Component
+public class CountryIdAllocation implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(CountryIdAllocation.class);
+
+    private static final String KEY = "country";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CountryIdAllocation(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Long floor = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + ? FROM country",
+                Long.class, Country.ID_ALLOCATION_SIZE);
+        int raised = jdbcTemplate.update("UPDATE " + Country.ID_ALLOCATION_TABLE
+                + " SET next_val = ? WHERE sequence_name = ? AND next_val < ?", floor, KEY, floor);
+        int created = jdbcTemplate.update("INSERT INTO " + Country.ID_ALLOCATION_TABLE
+                + " (sequence_name, next_val) SELECT ?, ? FROM DUAL WHERE NOT EXISTS"
+                + " (SELECT 1 FROM " + Country.ID_ALLOCATION_TABLE + " WHERE sequence_name = ?)",
+                KEY, floor, KEY);
+        if (raised + created > 0) {
+            logger.info("Country ID allocator raised to {}", floor);
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package org.example.adventuretime.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.transaction.Transactional;
 import java.util.List;
 import java.util.Optional;
+import org.example.adventuretime.cache.JsonBytes;
 import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.CountryNameDto;
 import org.example.adventuretime.dto.ResponseDto;
 import org.example.adventuretime.exception.ValidationException;
 import org.example.adventuretime.service.CountryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +23,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -31,24 +38,57 @@ public class CountryController {
     public static final String LANGUAGES_ARE_REQUIRED = "National languages are required";
     private final CountryService countryService;
     private static final String COUNTRY_NAME_REQUIRED = "Country name is required";
+    private static final int MAX_SUGGESTIONS = 50;
 
     public CountryController(CountryService countryService) {
         this.countryService = countryService;
     }
 
-    @Operation(summary = "Get all countries")
+    @Operation(summary = "Get all countries, or one page of them by number or after an ID")
     @GetMapping("/countries")
-    public List<CountryDto> getAllCountries() {
-        return countryService.findAll();
+    public ResponseEntity<List<CountryDto>> getAllCountries(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "false") boolean count) {
+        if (!PageResponses.isPaged(page, size, after)) {
+            return ResponseEntity.ok(countryService.findAll());
+        }
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = PageResponses.size(size);
+        List<CountryDto> countries = after != null
+                ? countryService.findAfter(after, pageSize)
+                : countryService.findPage(pageNumber, pageSize);
+        return PageResponses.ok(countries, pageNumber, pageSize, after, CountryDto::getId, count,
+                countryService::count);
+    }
+
+    @Operation(summary = "Suggest countries whose name starts with or contains the query")
+    @GetMapping("/countries/autocomplete")
+    public ResponseEntity<List<CountryNameDto>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (q.isBlank()) {
+            throw new ValidationException(COUNTRY_NAME_REQUIRED);
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        return ResponseEntity.ok(countryService.autocomplete(q.trim(), limit));
     }
 
     @Operation(summary = "Get country by ID")
     @GetMapping("/countries/{id}")
-    public ResponseEntity<CountryDto> getCountryById(@PathVariable Long id) {
-        Optional<CountryDto> country = countryService.findById(id);
+    @ApiResponse(responseCode = "200",
+            content = @Content(schema = @Schema(implementation = CountryDto.class)))
+    public ResponseEntity<byte[]> getCountryById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        Optional<JsonBytes> country = countryService.findJsonById(id);
         if (country.isPresent()) {
-            logger.info("Country found: {}", country.get());
-            return ResponseEntity.ok(country.get());
+            logger.info("Country found for id: {}", id);
+            return JsonResponses.ok(country.get(), acceptEncoding);
         } else {
             logger.warn("Country not found for id: {}", id);
             return ResponseEntity.notFound().build();
@@ -140,11 +180,7 @@ public class CountryController {
                                                                 List<CountryDto> countryDtos) {
         countryDtos.forEach(this::nameException);
 
-        List<CountryDto> savedCountries = countryDtos.stream()
-                .map(countryService::save)
-                .toList();
-
-        return ResponseEntity.ok(savedCountries);
+        return ResponseEntity.ok(countryService.saveAll(countryDtos));
     }
 
     @Operation(summary = "Country info (path)")
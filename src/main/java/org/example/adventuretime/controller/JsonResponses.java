@@ -0,0 +1,29 @@
+package org.example.adventuretime.controller;
+
+import lombok.experimental.UtilityClass;
+import org.example.adventuretime.cache.JsonBytes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Writes pre-serialized JSON from the cache straight to the response body.
+ */
+@UtilityClass
+class JsonResponses {
+
+    private static final String GZIP = "gzip";
+
+    ResponseEntity<byte[]> ok(JsonBytes json, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON);
+        if (!json.isGzipped()) {
+            return response.body(json.getContent());
+        }
+        response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains(GZIP)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(json.getContent());
+        }
+        return response.body(json.plain());
+    }
+}
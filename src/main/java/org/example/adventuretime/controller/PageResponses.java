@@ -0,0 +1,73 @@
+package org.example.adventuretime.controller;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import lombok.experimental.UtilityClass;
+import org.example.adventuretime.exception.ValidationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Paging for the list endpoints. The body stays a plain JSON array; the next page is linked in a
+ * {@code Link: rel="next"} header and the total is only counted when the client asks for it.
+ */
+@UtilityClass
+class PageResponses {
+
+    static final String TOTAL_COUNT = "X-Total-Count";
+    static final int DEFAULT_SIZE = 50;
+    static final int MAX_SIZE = 1000;
+
+    boolean isPaged(Integer page, Integer size, Long after) {
+        if (page != null && after != null) {
+            throw new ValidationException("Use either page or after, not both");
+        }
+        if (page != null && page < 0) {
+            throw new ValidationException("Page must not be negative");
+        }
+        after(after);
+        return page != null || size != null || after != null;
+    }
+
+    // The ID to continue after, zero for the first page.
+    long after(Long after) {
+        if (after == null) {
+            return 0;
+        }
+        if (after < 0) {
+            throw new ValidationException("After must not be negative");
+        }
+        return after;
+    }
+
+    int size(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new ValidationException("Size must be between 1 and " + MAX_SIZE);
+        }
+        return size;
+    }
+
+    <T> ResponseEntity<List<T>> ok(List<T> items, int page, int size, Long after,
+                                   Function<T, Long> idOf, boolean count, LongSupplier total) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (count) {
+            response.header(TOTAL_COUNT, Long.toString(total.getAsLong()));
+        }
+        if (items.size() == size) {
+            ServletUriComponentsBuilder next = ServletUriComponentsBuilder.fromCurrentRequest();
+            if (after != null) {
+                next.replaceQueryParam("after", idOf.apply(items.get(items.size() - 1)));
+            } else {
+                next.replaceQueryParam("page", page + 1);
+            }
+            response.header(HttpHeaders.LINK,
+                    "<" + next.replaceQueryParam("count").toUriString() + ">; rel=\"next\"");
+        }
+        return response.body(items);
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.adventuretime.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import java.util.List;
+import org.example.adventuretime.dto.SearchResultDto;
+import org.example.adventuretime.exception.ValidationException;
+import org.example.adventuretime.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    private static final int MAX_RESULTS = 100;
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @Operation(summary = "Full-text search over tour descriptions and country attractions")
+    @GetMapping
+    public ResponseEntity<List<SearchResultDto>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (q.isBlank()) {
+            throw new ValidationException("Search query is required");
+        }
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_RESULTS);
+        }
+        return ResponseEntity.ok(searchService.search(q.trim(), limit));
+    }
+}
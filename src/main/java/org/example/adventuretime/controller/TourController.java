@@ -1,16 +1,30 @@
 package org.example.adventuretime.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.transaction.Transactional;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import org.example.adventuretime.cache.JsonBytes;
+import org.example.adventuretime.config.BulkProperties;
+import org.example.adventuretime.dto.ImportReportDto;
 import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.TourSearchCriteria;
 import org.example.adventuretime.dto.TransportDto;
 import org.example.adventuretime.exception.ValidationException;
+import org.example.adventuretime.service.ImportFormat;
 import org.example.adventuretime.service.TourService;
 import org.example.adventuretime.service.TransportService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,9 +32,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 @RequestMapping("/api")
 @RestController
@@ -29,25 +45,46 @@ public class TourController {
     private static final Logger logger = LoggerFactory.getLogger(TourController.class);
     private final TourService tourService;
     private final TransportService transportService;
+    private final BulkProperties bulkProperties;
 
-    public TourController(TourService tourService, TransportService transportService) {
+    public TourController(TourService tourService, TransportService transportService,
+                          BulkProperties bulkProperties) {
         this.tourService = tourService;
         this.transportService = transportService;
+        this.bulkProperties = bulkProperties;
     }
 
-    @Operation(summary = "Get all tours")
+    @Operation(summary = "Get all tours, or one page of them by number or after an ID")
     @GetMapping("/tours")
-    public List<TourDto> getAllTours() {
-        return tourService.findAll();
+    public ResponseEntity<List<TourDto>> getAllTours(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "false") boolean count) {
+        if (!PageResponses.isPaged(page, size, after)) {
+            return ResponseEntity.ok(tourService.findAll());
+        }
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = PageResponses.size(size);
+        List<TourDto> tours = after != null
+                ? tourService.findAfter(after, pageSize)
+                : tourService.findPage(pageNumber, pageSize);
+        return PageResponses.ok(tours, pageNumber, pageSize, after, TourDto::getId, count,
+                tourService::count);
     }
 
     @Operation(summary = "Get tour by ID")
     @GetMapping("/tours/{id}")
-    public ResponseEntity<TourDto> getTourById(@PathVariable Long id) {
-        Optional<TourDto> tour = tourService.findById(id);
+    @ApiResponse(responseCode = "200",
+            content = @Content(schema = @Schema(implementation = TourDto.class)))
+    public ResponseEntity<byte[]> getTourById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        Optional<JsonBytes> tour = tourService.findJsonById(id);
         if (tour.isPresent()) {
-            logger.info("Tour found: {}", tour.get());
-            return ResponseEntity.ok(tour.get());
+            logger.info("Tour found for id: {}", id);
+            return JsonResponses.ok(tour.get(), acceptEncoding);
         } else {
             logger.warn("Tour not found for id: {}", id);
             return ResponseEntity.notFound().build();
@@ -62,6 +99,47 @@ public class TourController {
         return ResponseEntity.ok(savedTour);
     }
 
+    @Operation(summary = "Export all tours with their countries and transport as NDJSON")
+    @GetMapping(value = "/tours/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> exportTours(HttpServletResponse response) {
+        // A full catalogue outlasts the default async timeout, so this request has its own.
+        return new WebAsyncTask<>(bulkProperties.getExportTimeout().toMillis(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            tourService.exportTours(response.getOutputStream());
+            return null;
+        });
+    }
+
+    @Operation(summary = "Replace the countries of a tour")
+    @PutMapping("/tours/{id}/countries")
+    public ResponseEntity<TourDto> replaceTourCountries(@PathVariable Long id,
+                                                        @RequestBody Set<Long> countryIds) {
+        if (countryIds == null) {
+            throw new ValidationException("Country IDs are required");
+        }
+        tourService.replaceCountries(Map.of(id, countryIds));
+        return tourService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Replace the countries of several tours, keyed by tour ID")
+    @PutMapping("/tours/countries")
+    public ResponseEntity<Void> replaceCountries(
+            @RequestBody Map<Long, Set<Long>> countriesByTour) {
+        tourService.replaceCountries(countriesByTour);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Import tours from an NDJSON or CSV stream, linking transports and "
+            + "countries by ID")
+    @PostMapping(value = "/tours/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, ImportFormat.CSV_VALUE})
+    public ResponseEntity<ImportReportDto> importTours(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        return ResponseEntity.ok(tourService.importTours(body, ImportFormat.of(contentType)));
+    }
+
     private void nameException(@RequestBody TourDto tourDto) {
         if (tourDto.getName() == null || tourDto.getName().isEmpty()) {
             throw new ValidationException("Tour name is required");
@@ -110,6 +188,27 @@ public class TourController {
         return ResponseEntity.ok(updatedTour);
     }
 
+    @Operation(summary = "Search tours by duration, countries and transport, paged after an ID")
+    @GetMapping("/tours/search")
+    public ResponseEntity<List<TourDto>> searchTours(
+            TourSearchCriteria criteria,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long after) {
+        requireRange(criteria.getMinDays(), criteria.getMaxDays(), "Duration");
+        requireRange(criteria.getMinTransportCost(), criteria.getMaxTransportCost(),
+                "Transport cost");
+        int pageSize = PageResponses.size(size);
+        long afterId = PageResponses.after(after);
+        List<TourDto> tours = tourService.search(criteria, afterId, pageSize);
+        return PageResponses.ok(tours, 0, pageSize, afterId, TourDto::getId, false, () -> 0);
+    }
+
+    private static <T extends Comparable<T>> void requireRange(T min, T max, String what) {
+        if (min != null && max != null && min.compareTo(max) > 0) {
+            throw new ValidationException(what + " minimum must not exceed the maximum");
+        }
+    }
+
     @Operation(summary = "Sort tours by transport (JPQL)")
     @GetMapping("/tours/by-transport")
     public ResponseEntity<List<TourDto>> getToursByTransportType(@RequestParam String name) {
@@ -1,13 +1,18 @@
 package org.example.adventuretime.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
+import org.example.adventuretime.dto.ImportReportDto;
 import org.example.adventuretime.dto.TransportDto;
 import org.example.adventuretime.exception.ValidationException;
+import org.example.adventuretime.service.ImportFormat;
 import org.example.adventuretime.service.TransportService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,7 +20,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RequestMapping("/api")
@@ -29,10 +36,23 @@ public class TransportController {
         this.transportService = transportService;
     }
 
-    @Operation(summary = "Get all transports")
+    @Operation(summary = "Get all transports, or one page of them by number or after an ID")
     @GetMapping("/transport")
-    public List<TransportDto> getAllTransports() {
-        return transportService.findAll();
+    public ResponseEntity<List<TransportDto>> getAllTransports(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "false") boolean count) {
+        if (!PageResponses.isPaged(page, size, after)) {
+            return ResponseEntity.ok(transportService.findAll());
+        }
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = PageResponses.size(size);
+        List<TransportDto> transports = after != null
+                ? transportService.findAfter(after, pageSize)
+                : transportService.findPage(pageNumber, pageSize);
+        return PageResponses.ok(transports, pageNumber, pageSize, after, TransportDto::getId, count,
+                transportService::count);
     }
 
     @Operation(summary = "Get transport by ID")
@@ -64,6 +84,15 @@ public class TransportController {
         return ResponseEntity.ok(savedTransport);
     }
 
+    @Operation(summary = "Import transports from an NDJSON or CSV stream")
+    @PostMapping(value = "/transport/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, ImportFormat.CSV_VALUE})
+    public ResponseEntity<ImportReportDto> importTransports(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        return ResponseEntity.ok(transportService.importTransports(body,
+                ImportFormat.of(contentType)));
+    }
+
     @Operation(summary = "Update transport by ID")
     @PutMapping("/transport/{id}")
     public ResponseEntity<TransportDto> updateTransport(@PathVariable Long id,
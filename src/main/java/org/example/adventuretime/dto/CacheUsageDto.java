@@ -0,0 +1,28 @@
+package org.example.adventuretime.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CacheUsageDto {
+    private String name;
+    private long entries;
+    private long weightBytes;
+    private long maxWeightBytes;
+    private long jsonEntries;
+    private long jsonWeightBytes;
+    private long collectionWeightBytes;
+    private long restoredEntries;
+    private long restoredWeightBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long loads;
+    private long loadFailures;
+    private long loadTimeNanos;
+    private long coalescedLoads;
+    private long negativeHits;
+    private long refreshes;
+    private long staleServed;
+}
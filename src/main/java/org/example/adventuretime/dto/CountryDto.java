@@ -15,5 +15,6 @@ public class CountryDto {
     private String attractions;
     private Double visaCost;
     private String nationalLanguages;
+    private Long version;
     private Set<TourDto> tours;
 }
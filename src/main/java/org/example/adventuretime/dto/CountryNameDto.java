@@ -0,0 +1,13 @@
+package org.example.adventuretime.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountryNameDto {
+    private Long id;
+    private String name;
+}
@@ -0,0 +1,22 @@
+package org.example.adventuretime.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImportReportDto {
+    private long imported;
+    private long failed;
+    // Only the first failures are listed, failed counts all of them.
+    private List<RowError> errors;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        // Line of the upload the row starts on.
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.adventuretime.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.adventuretime.cache.EntityType;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDto {
+    private EntityType type;
+    private Long id;
+    private String name;
+    private double score;
+}
@@ -13,6 +13,7 @@ public class TourDto {
     private String name;
     private String description;
     private Integer durationDays;
+    private Long version;
     private Set<CountryDto> countries;
     private TransportDto transport;
 }
@@ -0,0 +1,18 @@
+package org.example.adventuretime.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row of a tour import; links refer to existing transports and countries by ID.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourImportDto {
+    private String name;
+    private String description;
+    private Integer durationDays;
+    private Long transportId;
+    private List<Long> countryIds;
+}
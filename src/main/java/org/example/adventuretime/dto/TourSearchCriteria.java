@@ -0,0 +1,25 @@
+package org.example.adventuretime.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filters of the tour search; unset ones are ignored. The country filters are met by a tour
+ * that visits at least one country satisfying all of them, the transport filters by its
+ * transport.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourSearchCriteria {
+    private Integer minDays;
+    private Integer maxDays;
+    private List<Long> countryIds;
+    private Boolean countryAvailable;
+    private Double maxVisaCost;
+    private String transport;
+    private Double minTransportCost;
+    private Double maxTransportCost;
+}
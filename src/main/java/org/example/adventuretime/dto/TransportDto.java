@@ -12,4 +12,5 @@ public class TransportDto {
     private String name;
     private Integer capacity;
     private Double cost;
+    private Long version;
 }
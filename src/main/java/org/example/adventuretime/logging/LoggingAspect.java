@@ -1,6 +1,5 @@
 package org.example.adventuretime.logging;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.aspectj.lang.JoinPoint;
@@ -44,38 +43,6 @@ public class LoggingAspect {
         }
     }
 
-    @Before("execution(* org.example.adventuretime.config.CacheConfig.get*(Long))")
-    public void logCacheGetBefore(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        Long id = (Long) joinPoint.getArgs()[0];
-        String entityType = getEntityTypeFromMethod(methodName);
-        logger.info("Попытка получить {} с ID {} из кэша", entityType, id);
-    }
-
-    @AfterReturning(pointcut =
-            "execution(* org.example.adventuretime.config.CacheConfig.get*(Long))",
-            returning = "result")
-    public void logCacheGetAfterReturning(JoinPoint joinPoint, Object result) {
-        String methodName = joinPoint.getSignature().getName();
-        Long id = (Long) joinPoint.getArgs()[0];
-        String entityType = getEntityTypeFromMethod(methodName);
-        if (result != null) {
-            logger.info("{} с ID {} успешно получен из кэша", entityType, id);
-        } else {
-            logger.info("{} с ID {} не найден в кэше", entityType, id);
-        }
-    }
-
-    @AfterReturning(pointcut =
-            "execution(* org.example.adventuretime.config.CacheConfig.getAll*())",
-            returning = "result")
-    public void logCacheGetAllAfterReturning(JoinPoint joinPoint, Object result) {
-        String methodName = joinPoint.getSignature().getName();
-        String entityType = getEntityTypeFromMethod(methodName);
-        logger.info("Все {} успешно получены из кэша, количество: {}",
-                entityType, ((Collection<?>) result).size());
-    }
-
     @Before(
             "execution(* org.example.adventuretime.repository.*.findById(Long))")
     public void logDbFindBefore(JoinPoint joinPoint) {
@@ -109,48 +76,6 @@ public class LoggingAspect {
                 entityType, ((List<?>) result).size());
     }
 
-    @Before(
-            "execution(* org.example.adventuretime.config.CacheConfig.put*(Long, *))")
-    public void logCachePutBefore(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        Long id = (Long) joinPoint.getArgs()[0];
-        String entityType = getEntityTypeFromMethod(methodName);
-        logger.info("Добавление/обновление {} с ID {} в кэше", entityType, id);
-    }
-
-    @AfterReturning(pointcut =
-            "execution(* org.example.adventuretime.config.CacheConfig.put*(Long, *))")
-    public void logCachePutAfterReturning(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        Long id = (Long) joinPoint.getArgs()[0];
-        String entityType = getEntityTypeFromMethod(methodName);
-        logger.info("{} с ID {} успешно добавлен/обновлен в кэше", entityType, id);
-    }
-
-    @Before("execution(* org.example.adventuretime.config.CacheConfig.remove*(Long))")
-    public void logCacheRemoveBefore(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        Long id = (Long) joinPoint.getArgs()[0];
-        String entityType = getEntityTypeFromMethod(methodName);
-        logger.info("Удаление {} с ID {} из кэша", entityType, id);
-    }
-
-    @AfterReturning(pointcut =
-            "execution(* org.example.adventuretime.config.CacheConfig.remove*(Long))")
-    public void logCacheRemoveAfterReturning(JoinPoint joinPoint) {
-        String methodName = joinPoint.getSignature().getName();
-        Long id = (Long) joinPoint.getArgs()[0];
-        String entityType = getEntityTypeFromMethod(methodName);
-        logger.info("{} с ID {} успешно удален из кэша", entityType, id);
-    }
-
-    private String getEntityTypeFromMethod(String methodName) {
-        if (methodName.contains("Tour")) return "Тур";
-        if (methodName.contains("Country")) return "Страна";
-        if (methodName.contains("Transport")) return "Транспорт";
-        return "Неизвестный тип";
-    }
-
     private String getEntityTypeFromRepository(String repositoryName) {
         if (repositoryName.contains("Tour")) return "Тур";
         if (repositoryName.contains("Country")) return "Страна";
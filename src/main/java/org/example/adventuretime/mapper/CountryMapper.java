@@ -1,9 +1,16 @@
 package org.example.adventuretime.mapper;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import lombok.experimental.UtilityClass;
 import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.TourDto;
 import org.example.adventuretime.model.Country;
+import org.example.adventuretime.repository.CountryRow;
 
 @UtilityClass
 public class CountryMapper {
@@ -17,6 +24,7 @@ public class CountryMapper {
         dto.setAttractions(country.getAttractions());
         dto.setVisaCost(country.getVisaCost());
         dto.setNationalLanguages(country.getNationalLanguages());
+        dto.setVersion(country.getVersion());
         if (country.getTours() != null) {
             dto.setTours(country.getTours().stream()
                     .map(TourMapper::toDtoShallow)
@@ -25,6 +33,24 @@ public class CountryMapper {
         return dto;
     }
 
+    // Same graph as toDto, built from join rows in the order each country first appears.
+    public List<CountryDto> fromRows(List<CountryRow> rows) {
+        Map<Long, CountryDto> countries = new LinkedHashMap<>();
+        for (CountryRow row : rows) {
+            CountryDto country = countries.computeIfAbsent(row.id(), id -> new CountryDto(id,
+                    row.name(), row.available(), row.attractions(), row.visaCost(),
+                    row.nationalLanguages(), row.version(), new HashSet<>()));
+            if (row.tourId() != null) {
+                country.getTours().add(new TourDto(row.tourId(), row.tourName(),
+                        row.tourDescription(), row.tourDurationDays(), row.tourVersion(), null,
+                        TransportMapper.fromColumns(row.transportId(), row.transportName(),
+                                row.transportCapacity(), row.transportCost(),
+                                row.transportVersion())));
+            }
+        }
+        return new ArrayList<>(countries.values());
+    }
+
     public CountryDto toDtoShallow(Country country) {
         if (country == null) return null;
         CountryDto dto = new CountryDto();
@@ -34,6 +60,7 @@ public class CountryMapper {
         dto.setVisaCost(country.getVisaCost());
         dto.setNationalLanguages(country.getNationalLanguages());
         dto.setAvailable(country.isAvailable());
+        dto.setVersion(country.getVersion());
         return dto;
     }
 
@@ -41,11 +68,16 @@ public class CountryMapper {
         if (dto == null) return null;
         Country country = new Country();
         country.setId(dto.getId());
+        copyFields(dto, country);
+        return country;
+    }
+
+    // The editable columns; the ID, version and tours are left as they are.
+    public void copyFields(CountryDto dto, Country country) {
         country.setName(dto.getName());
         country.setAvailable(dto.isAvailable());
         country.setAttractions(dto.getAttractions());
         country.setVisaCost(dto.getVisaCost());
         country.setNationalLanguages(dto.getNationalLanguages());
-        return country;
     }
 }
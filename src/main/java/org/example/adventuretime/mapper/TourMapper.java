@@ -1,9 +1,16 @@
 package org.example.adventuretime.mapper;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import lombok.experimental.UtilityClass;
+import org.example.adventuretime.dto.CountryDto;
 import org.example.adventuretime.dto.TourDto;
 import org.example.adventuretime.model.Tour;
+import org.example.adventuretime.repository.TourRow;
 
 @UtilityClass
 public class TourMapper {
@@ -15,6 +22,7 @@ public class TourMapper {
         dto.setName(tour.getName());
         dto.setDescription(tour.getDescription());
         dto.setDurationDays(tour.getDurationDays());
+        dto.setVersion(tour.getVersion());
         if (tour.getCountries() != null) {
             dto.setCountries(tour.getCountries().stream()
                     .map(CountryMapper::toDtoShallow)
@@ -33,20 +41,45 @@ public class TourMapper {
         dto.setName(tour.getName());
         dto.setDescription(tour.getDescription());
         dto.setDurationDays(tour.getDurationDays());
+        dto.setVersion(tour.getVersion());
         dto.setTransport(TransportMapper.toDto(tour.getTransport()));
         return dto;
     }
 
+    // Same graph as toDto, built from join rows in the order each tour first appears.
+    public List<TourDto> fromRows(List<TourRow> rows) {
+        Map<Long, TourDto> tours = new LinkedHashMap<>();
+        for (TourRow row : rows) {
+            TourDto tour = tours.computeIfAbsent(row.id(), id -> new TourDto(id, row.name(),
+                    row.description(), row.durationDays(), row.version(), new HashSet<>(),
+                    TransportMapper.fromColumns(row.transportId(), row.transportName(),
+                            row.transportCapacity(), row.transportCost(),
+                            row.transportVersion())));
+            if (row.countryId() != null) {
+                tour.getCountries().add(new CountryDto(row.countryId(), row.countryName(),
+                        row.countryAvailable(), row.countryAttractions(),
+                        row.countryVisaCost(), row.countryNationalLanguages(),
+                        row.countryVersion(), null));
+            }
+        }
+        return new ArrayList<>(tours.values());
+    }
+
     public Tour toEntity(TourDto dto) {
         if (dto == null) return null;
         Tour tour = new Tour();
         tour.setId(dto.getId());
-        tour.setName(dto.getName());
-        tour.setDescription(dto.getDescription());
-        tour.setDurationDays(dto.getDurationDays());
+        copyFields(dto, tour);
         if (dto.getTransport() != null) {
             tour.setTransport(TransportMapper.toEntity(dto.getTransport()));
         }
         return tour;
     }
+
+    // The editable columns; the ID, version and associations are left as they are.
+    public void copyFields(TourDto dto, Tour tour) {
+        tour.setName(dto.getName());
+        tour.setDescription(dto.getDescription());
+        tour.setDurationDays(dto.getDurationDays());
+    }
 }
@@ -14,16 +14,28 @@ public class TransportMapper {
         dto.setName(transport.getName());
         dto.setCapacity(transport.getCapacity());
         dto.setCost(transport.getCost());
+        dto.setVersion(transport.getVersion());
         return dto;
     }
 
+    // Transport columns of an outer join row, null when the row has no transport.
+    public TransportDto fromColumns(Long id, String name, Integer capacity, Double cost,
+                                    Long version) {
+        return id == null ? null : new TransportDto(id, name, capacity, cost, version);
+    }
+
     public Transport toEntity(TransportDto dto) {
         if (dto == null) return null;
         Transport transport = new Transport();
         transport.setId(dto.getId());
+        copyFields(dto, transport);
+        return transport;
+    }
+
+    // The editable columns; the ID and version are left as they are.
+    public void copyFields(TransportDto dto, Transport transport) {
         transport.setName(dto.getName());
         transport.setCapacity(dto.getCapacity());
         transport.setCost(dto.getCost());
-        return transport;
     }
 }
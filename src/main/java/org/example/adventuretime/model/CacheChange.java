@@ -0,0 +1,48 @@
+package org.example.adventuretime.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.adventuretime.cache.EntityType;
+
+// One row per committed write; other instances tail the table to evict their cached copies.
+@Setter
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "cache_change_log", indexes = @Index(columnList = "createdAt"))
+public class CacheChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false, length = 36)
+    private String node;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public CacheChange(EntityType entityType, Long entityId, String node) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.node = node;
+        this.createdAt = Instant.now();
+    }
+}
@@ -3,24 +3,36 @@ package org.example.adventuretime.model;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import java.util.HashSet;
 import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 @Setter
 @Getter
 @Entity
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Country {
+    public static final String ID_ALLOCATION_TABLE = "id_allocation";
+    public static final int ID_ALLOCATION_SIZE = 100;
+
+    // IDENTITY makes Hibernate insert row by row; a pooled table allocator hands out blocks of
+    // IDs so bulk inserts can be batched. CountryIdAllocation moves it past existing rows.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "country_ids")
+    @TableGenerator(name = "country_ids", table = ID_ALLOCATION_TABLE,
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "country", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private String name;
     private boolean available;
@@ -28,6 +40,11 @@ public class Country {
     private Double visaCost;
     private String nationalLanguages;
 
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
     @ManyToMany(mappedBy = "countries", cascade = {CascadeType.PERSIST, CascadeType.MERGE},
             fetch = FetchType.LAZY)
     private Set<Tour> tours = new HashSet<>();
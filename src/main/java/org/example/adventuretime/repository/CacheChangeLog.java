@@ -0,0 +1,38 @@
+package org.example.adventuretime.repository;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import org.example.adventuretime.model.CacheChange;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Appends {@code cache_change_log} rows as JDBC batches. The IDENTITY key keeps Hibernate from
+ * batching these inserts, so bulk writes, which announce many rows at once, go through here.
+ */
+@Repository
+public class CacheChangeLog {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CacheChangeLog(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Timestamps are written in UTC, as Hibernate stores the Instant column.
+    public void insert(List<CacheChange> changes, int batchSize) {
+        jdbcTemplate.batchUpdate("INSERT INTO cache_change_log (entity_type, entity_id, node, "
+                        + "created_at) VALUES (?, ?, ?, ?)",
+                changes, batchSize, (statement, change) -> {
+                    statement.setString(1, change.getEntityType().name());
+                    statement.setLong(2, change.getEntityId());
+                    statement.setString(3, change.getNode());
+                    statement.setTimestamp(4, Timestamp.from(change.getCreatedAt()),
+                            Calendar.getInstance(UTC));
+                });
+    }
+}
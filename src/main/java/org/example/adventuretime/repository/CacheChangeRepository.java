@@ -0,0 +1,27 @@
+package org.example.adventuretime.repository;
+
+import java.time.Instant;
+import java.util.List;
+import org.example.adventuretime.model.CacheChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CacheChangeRepository extends JpaRepository<CacheChange, Long> {
+    @Query("SELECT c FROM CacheChange c WHERE c.id > :after ORDER BY c.id")
+    List<CacheChange> findAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT c FROM CacheChange c WHERE c.id BETWEEN :from AND :to ORDER BY c.id")
+    List<CacheChange> findBetween(@Param("from") long from, @Param("to") long to);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CacheChange c")
+    long findLastId();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CacheChange c WHERE c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
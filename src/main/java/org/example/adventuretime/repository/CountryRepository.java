@@ -1,10 +1,85 @@
 package org.example.adventuretime.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.example.adventuretime.dto.CountryNameDto;
 import org.example.adventuretime.model.Country;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CountryRepository extends JpaRepository<Country, Long> {
-    @SuppressWarnings("checkstyle:EmptyLineSeparator")
-    List<Country> findByNameLike(String namePattern);
+    String COUNTRY_ROWS = "SELECT new org.example.adventuretime.repository.CountryRow(c.id, "
+            + "c.name, c.available, c.attractions, c.visaCost, c.nationalLanguages, c.version, "
+            + "t.id, t.name, t.description, t.durationDays, t.version, tr.id, tr.name, "
+            + "tr.capacity, tr.cost, tr.version) "
+            + "FROM Country c LEFT JOIN c.tours t LEFT JOIN t.transport tr ";
+
+    @Query(COUNTRY_ROWS + "WHERE c.name LIKE :pattern ORDER BY c.id")
+    List<CountryRow> findRowsByNameLike(@Param("pattern") String namePattern);
+
+    @Query("SELECT new org.example.adventuretime.dto.CountryNameDto(c.id, c.name) FROM Country c")
+    List<CountryNameDto> findAllNames();
+
+    @Query("SELECT new org.example.adventuretime.dto.CountryNameDto(c.id, c.name) FROM Country c "
+           + "WHERE c.name LIKE :pattern ORDER BY c.name")
+    List<CountryNameDto> findNamesByNameLike(@Param("pattern") String namePattern,
+                                             Pageable pageable);
+
+    @Query("SELECT new org.example.adventuretime.repository.TextRow(c.id, c.name, c.attractions) "
+           + "FROM Country c")
+    List<TextRow> findTextRows();
+
+    @Query("SELECT new org.example.adventuretime.repository.TextRow(c.id, c.name, c.attractions) "
+           + "FROM Country c WHERE c.id = :id")
+    Optional<TextRow> findTextRowById(@Param("id") Long id);
+
+    @Query("SELECT new org.example.adventuretime.repository.TextRow(c.id, c.name, c.attractions) "
+           + "FROM Country c WHERE c.attractions LIKE :pattern ORDER BY c.id")
+    List<TextRow> findTextRowsByTextLike(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("SELECT c.name FROM Country c WHERE c.id = :id")
+    Optional<String> findNameById(@Param("id") Long id);
+
+    @Query(COUNTRY_ROWS + "ORDER BY c.id")
+    List<CountryRow> findAllRows();
+
+    @Query(COUNTRY_ROWS + "WHERE c.id = :id")
+    List<CountryRow> findRowsById(@Param("id") Long id);
+
+    @Query(COUNTRY_ROWS + "WHERE c.id IN :ids")
+    List<CountryRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id FROM Country c ORDER BY c.id")
+    List<Long> findIds(Pageable pageable);
+
+    @Query("SELECT c.id FROM Country c WHERE c.id > :after ORDER BY c.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT DISTINCT c FROM Country c LEFT JOIN FETCH c.tours t "
+           + "LEFT JOIN FETCH t.transport WHERE c.id IN :ids")
+    List<Country> findWithToursByIdIn(@Param("ids") Collection<Long> ids);
+
+    // One row per linked tour; nulls where the country has no tours or a tour no transport.
+    @Query("SELECT c.version, t.id, t.version, tr.id, tr.version FROM Country c "
+           + "LEFT JOIN c.tours t LEFT JOIN t.transport tr WHERE c.id = :id")
+    List<Object[]> findVersionStamps(@Param("id") Long id);
+
+    @Query("SELECT c.id FROM Country c WHERE c.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Country c SET c.version = c.version + 1 WHERE c.id IN :ids")
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id FROM Tour t JOIN t.countries c WHERE t.id = :tourId")
+    List<Long> findIdsByTourId(@Param("tourId") Long tourId);
+
+    // Links in tour_country have to be removed first, see TourCountryLinks.deleteByCountry.
+    @Modifying
+    @Query("DELETE FROM Country c WHERE c.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
 }
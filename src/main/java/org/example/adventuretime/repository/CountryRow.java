@@ -0,0 +1,13 @@
+package org.example.adventuretime.repository;
+
+/**
+ * One row of the country/tour/transport join: a country with one of its tours and that tour's
+ * transport. Tour and transport columns are null where the outer join found nothing.
+ */
+public record CountryRow(Long id, String name, Boolean available, String attractions,
+                         Double visaCost, String nationalLanguages, Long version,
+                         Long tourId, String tourName, String tourDescription,
+                         Integer tourDurationDays, Long tourVersion, Long transportId,
+                         String transportName, Integer transportCapacity,
+                         Double transportCost, Long transportVersion) {
+}
@@ -0,0 +1,8 @@
+package org.example.adventuretime.repository;
+
+/**
+ * The searchable free text of a tour or country, its description or attractions, with the name
+ * shown next to a hit.
+ */
+public record TextRow(Long id, String name, String text) {
+}
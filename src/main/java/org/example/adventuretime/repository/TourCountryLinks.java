@@ -0,0 +1,69 @@
+package org.example.adventuretime.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads and writes the {@code tour_country} join table directly, without loading either side.
+ * Callers are responsible for bumping versions and evicting caches of the rows they touch.
+ */
+@Repository
+public class TourCountryLinks {
+
+    public record Link(long tourId, long countryId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public TourCountryLinks(JdbcTemplate jdbcTemplate,
+                            NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public Map<Long, Set<Long>> findCountryIds(Collection<Long> tourIds) {
+        Map<Long, Set<Long>> countryIds = new HashMap<>();
+        if (tourIds.isEmpty()) {
+            return countryIds;
+        }
+        namedJdbcTemplate.query(
+                "SELECT tour_id, country_id FROM tour_country WHERE tour_id IN (:ids)",
+                Map.of("ids", tourIds), row -> {
+                    countryIds.computeIfAbsent(row.getLong(1), id -> new HashSet<>())
+                            .add(row.getLong(2));
+                });
+        return countryIds;
+    }
+
+    public void insert(List<Link> links, int batchSize) {
+        jdbcTemplate.batchUpdate("INSERT INTO tour_country (tour_id, country_id) VALUES (?, ?)",
+                links, batchSize, (statement, link) -> {
+                    statement.setLong(1, link.tourId());
+                    statement.setLong(2, link.countryId());
+                });
+    }
+
+    public void delete(List<Link> links, int batchSize) {
+        jdbcTemplate.batchUpdate("DELETE FROM tour_country WHERE tour_id = ? AND country_id = ?",
+                links, batchSize, (statement, link) -> {
+                    statement.setLong(1, link.tourId());
+                    statement.setLong(2, link.countryId());
+                });
+    }
+
+    public int deleteByTour(long tourId) {
+        return jdbcTemplate.update("DELETE FROM tour_country WHERE tour_id = ?", tourId);
+    }
+
+    public int deleteByCountry(long countryId) {
+        return jdbcTemplate.update("DELETE FROM tour_country WHERE country_id = ?", countryId);
+    }
+}
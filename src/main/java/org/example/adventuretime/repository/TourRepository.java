@@ -1,21 +1,126 @@
 package org.example.adventuretime.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 import org.example.adventuretime.model.Tour;
-import org.example.adventuretime.model.Transport;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface TourRepository extends JpaRepository<Tour, Long> {
-    List<Tour> findByTransport(Transport transport);
+    // Read paths select flat rows straight into TourRow, TourMapper.fromRows builds the DTOs;
+    // no entity is hydrated or tracked for dirty checking.
+    String TOUR_ROWS = "SELECT new org.example.adventuretime.repository.TourRow(t.id, t.name, "
+            + "t.description, t.durationDays, t.version, c.id, c.name, c.available, "
+            + "c.attractions, c.visaCost, c.nationalLanguages, c.version, tr.id, tr.name, "
+            + "tr.capacity, tr.cost, tr.version) "
+            + "FROM Tour t LEFT JOIN t.countries c LEFT JOIN t.transport tr ";
 
-    @Query("SELECT t FROM Tour t WHERE t.transport.name = :name")
-    List<Tour> findToursByTransportTypeJpql(@Param("name") String name);
+    @Query(TOUR_ROWS + "ORDER BY t.id")
+    List<TourRow> findAllRows();
 
-    @Query(value = "SELECT t.* FROM tour t INNER JOIN transport tr "
-           + "ON t.transport_id = tr.id WHERE tr.name = :name", nativeQuery = true)
-    List<Tour> findToursByTransportTypeNative(@Param("name") String name);
+    // Forward-only cursor for the export; fetched in blocks (MySQL needs useCursorFetch=true),
+    // and the rows of one tour are adjacent. Has to be consumed inside a transaction.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(TOUR_ROWS + "ORDER BY t.id")
+    Stream<TourRow> streamAllRows();
+
+    @Query(TOUR_ROWS + "WHERE t.id = :id")
+    List<TourRow> findRowsById(@Param("id") Long id);
+
+    @Query(TOUR_ROWS + "WHERE t.id IN :ids ORDER BY t.id")
+    List<TourRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT t.id FROM Tour t JOIN t.transport tr WHERE tr.name = :name ORDER BY t.id")
+    List<Long> findIdsByTransportName(@Param("name") String name);
+
+    @Query(value = "SELECT t.id FROM tour t INNER JOIN transport tr "
+           + "ON t.transport_id = tr.id WHERE tr.name = :name ORDER BY t.id", nativeQuery = true)
+    List<Long> findIdsByTransportNameNative(@Param("name") String name);
+
+    // Database side of the tour search, used until the in-memory index is built. One joined
+    // row has to meet all country filters, as in TourSearchIndex.
+    @Query("SELECT DISTINCT t.id FROM Tour t LEFT JOIN t.countries c LEFT JOIN t.transport tr "
+           + "WHERE t.id > :after "
+           + "AND (:minDays IS NULL OR t.durationDays >= :minDays) "
+           + "AND (:maxDays IS NULL OR t.durationDays <= :maxDays) "
+           + "AND (:anyCountry = TRUE OR c.id IN :countryIds) "
+           + "AND (:available IS NULL OR c.available = :available) "
+           + "AND (:maxVisaCost IS NULL OR c.visaCost <= :maxVisaCost) "
+           + "AND (:transport IS NULL OR tr.name = :transport) "
+           + "AND (:minCost IS NULL OR tr.cost >= :minCost) "
+           + "AND (:maxCost IS NULL OR tr.cost <= :maxCost) "
+           + "ORDER BY t.id")
+    List<Long> searchIds(@Param("after") long after,
+                         @Param("minDays") Integer minDays,
+                         @Param("maxDays") Integer maxDays,
+                         @Param("anyCountry") boolean anyCountry,
+                         @Param("countryIds") Collection<Long> countryIds,
+                         @Param("available") Boolean available,
+                         @Param("maxVisaCost") Double maxVisaCost,
+                         @Param("transport") String transport,
+                         @Param("minCost") Double minCost,
+                         @Param("maxCost") Double maxCost,
+                         Pageable pageable);
+
+    @Query("SELECT new org.example.adventuretime.repository.TextRow(t.id, t.name, t.description) "
+           + "FROM Tour t")
+    List<TextRow> findTextRows();
+
+    @Query("SELECT new org.example.adventuretime.repository.TextRow(t.id, t.name, t.description) "
+           + "FROM Tour t WHERE t.id = :id")
+    Optional<TextRow> findTextRowById(@Param("id") Long id);
+
+    @Query("SELECT new org.example.adventuretime.repository.TextRow(t.id, t.name, t.description) "
+           + "FROM Tour t WHERE t.description LIKE :pattern ORDER BY t.id")
+    List<TextRow> findTextRowsByTextLike(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("SELECT t.id FROM Tour t ORDER BY t.id")
+    List<Long> findIds(Pageable pageable);
+
+    // Keyset page: stays an index range scan however deep the client pages.
+    @Query("SELECT t.id FROM Tour t WHERE t.id > :after ORDER BY t.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT DISTINCT t FROM Tour t LEFT JOIN FETCH t.countries "
+           + "LEFT JOIN FETCH t.transport WHERE t.id IN :ids")
+    List<Tour> findWithCountriesAndTransportByIdIn(@Param("ids") Collection<Long> ids);
+
+    // One row per linked country; nulls where the tour has no countries or transport.
+    @Query("SELECT t.version, c.id, c.version, tr.id, tr.version FROM Tour t "
+           + "LEFT JOIN t.countries c LEFT JOIN t.transport tr WHERE t.id = :id")
+    List<Object[]> findVersionStamps(@Param("id") Long id);
+
+    @Query("SELECT t.id FROM Tour t WHERE t.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Tour t SET t.version = t.version + 1 WHERE t.id IN :ids")
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    // Null when the tour has no transport.
+    @Query("SELECT tr.name FROM Tour t LEFT JOIN t.transport tr WHERE t.id = :id")
+    String findTransportNameById(@Param("id") Long id);
+
+    @Query("SELECT t.id FROM Tour t JOIN t.countries c WHERE c.id = :countryId")
+    List<Long> findIdsByCountryId(@Param("countryId") Long countryId);
+
+    @Modifying
+    @Query("UPDATE Tour t SET t.transport = NULL, t.version = t.version + 1 "
+           + "WHERE t.transport.id = :transportId")
+    int clearTransport(@Param("transportId") Long transportId);
+
+    // Links in tour_country have to be removed first, see TourCountryLinks.deleteByTour.
+    @Modifying
+    @Query("DELETE FROM Tour t WHERE t.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
 }
@@ -0,0 +1,14 @@
+package org.example.adventuretime.repository;
+
+/**
+ * One row of the tour/country/transport join: a tour with one of its countries and its
+ * transport. Country and transport columns are null where the outer join found nothing.
+ */
+public record TourRow(Long id, String name, String description, Integer durationDays,
+                      Long version, Long countryId, String countryName,
+                      Boolean countryAvailable, String countryAttractions,
+                      Double countryVisaCost, String countryNationalLanguages,
+                      Long countryVersion, Long transportId, String transportName,
+                      Integer transportCapacity, Double transportCost,
+                      Long transportVersion) {
+}
@@ -1,7 +1,40 @@
 package org.example.adventuretime.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.example.adventuretime.dto.TransportDto;
 import org.example.adventuretime.model.Transport;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TransportRepository extends JpaRepository<Transport, Long> {
+    String TRANSPORT_DTOS = "SELECT new org.example.adventuretime.dto.TransportDto(tr.id, "
+            + "tr.name, tr.capacity, tr.cost, tr.version) FROM Transport tr ";
+
+    @Query(TRANSPORT_DTOS + "ORDER BY tr.id")
+    List<TransportDto> findAllDtos();
+
+    @Query(TRANSPORT_DTOS + "WHERE tr.id = :id")
+    Optional<TransportDto> findDtoById(@Param("id") Long id);
+
+    @Query(TRANSPORT_DTOS + "WHERE tr.id IN :ids")
+    List<TransportDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT tr.id FROM Transport tr ORDER BY tr.id")
+    List<Long> findIds(Pageable pageable);
+
+    @Query("SELECT tr.id FROM Transport tr WHERE tr.id > :after ORDER BY tr.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("SELECT tr.version FROM Transport tr WHERE tr.id = :id")
+    Optional<Long> findVersion(@Param("id") Long id);
+
+    // Tours referring to the transport have to be cleared first, see TourRepository.clearTransport.
+    @Modifying
+    @Query("DELETE FROM Transport tr WHERE tr.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
 }
@@ -0,0 +1,195 @@
+package org.example.adventuretime.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.example.adventuretime.config.BulkProperties;
+import org.example.adventuretime.dto.ImportReportDto;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams an NDJSON or CSV upload into the database. Rows are parsed one at a time and written
+ * in chunks of {@code adventuretime.bulk.batch-size}, each chunk in its own transaction, so the
+ * upload is never held in memory. Rows that cannot be parsed, validated or written are listed
+ * in the report instead of aborting the import.
+ */
+@Component
+public class BulkImporter {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    public record Row<T>(long line, T value, String error) {
+    }
+
+    // The rows of one transaction; the writer rejects the ones it cannot save.
+    public static class Chunk<T> {
+        private final List<Row<T>> rows;
+        private final Map<Row<T>, String> rejected = new LinkedHashMap<>();
+
+        Chunk(List<Row<T>> rows) {
+            this.rows = rows;
+        }
+
+        public List<Row<T>> rows() {
+            return rows;
+        }
+
+        public void reject(Row<T> row, String message) {
+            rejected.put(row, message);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ChunkWriter<T> {
+        void write(Chunk<T> chunk);
+    }
+
+    private interface RowReader<T> {
+        Row<T> next() throws IOException;
+    }
+
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = CsvMapper.builder()
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .disable(CsvParser.Feature.FAIL_ON_MISSING_HEADER_COLUMNS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final TransactionTemplate transactionTemplate;
+    private final BulkProperties bulkProperties;
+
+    public BulkImporter(ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                        BulkProperties bulkProperties) {
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bulkProperties = bulkProperties;
+    }
+
+    public <T> ImportReportDto run(InputStream in, ImportFormat format, Class<T> type,
+                                   Function<T, String> validator, ChunkWriter<T> writer) {
+        Report report = new Report();
+        List<Row<T>> rows = new ArrayList<>();
+        long lastLine = 0;
+        try {
+            RowReader<T> reader = format == ImportFormat.CSV
+                    ? csvRows(in, type)
+                    : ndjsonRows(in, type);
+            for (Row<T> row = reader.next(); row != null; row = reader.next()) {
+                lastLine = row.line();
+                String error = row.error() != null ? row.error() : validator.apply(row.value());
+                if (error != null) {
+                    report.fail(row.line(), error);
+                    continue;
+                }
+                rows.add(row);
+                if (rows.size() >= bulkProperties.getBatchSize()) {
+                    write(rows, writer, report);
+                    rows = new ArrayList<>();
+                }
+            }
+        } catch (IOException e) {
+            // Broken input, e.g. an unterminated CSV quote: rows read so far are still saved.
+            report.fail(lastLine + 1, "Input cannot be read further: " + e.getMessage());
+        }
+        write(rows, writer, report);
+        return report.toDto();
+    }
+
+    private <T> void write(List<Row<T>> rows, ChunkWriter<T> writer, Report report) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Chunk<T> chunk = new Chunk<>(rows);
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.write(chunk));
+        } catch (RuntimeException e) {
+            if (rows.size() > 1) {
+                // One bad row rolls back the whole chunk; retry row by row to isolate it.
+                rows.forEach(row -> write(List.of(row), writer, report));
+            } else {
+                report.fail(rows.get(0).line(), "Not saved: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+            return;
+        }
+        chunk.rejected.forEach((row, message) -> report.fail(row.line(), message));
+        report.imported += rows.size() - chunk.rejected.size();
+    }
+
+    private <T> RowReader<T> ndjsonRows(InputStream in, Class<T> type) {
+        BufferedReader lines = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8));
+        ObjectReader reader = objectMapper.readerFor(type);
+        long[] line = {0};
+        return () -> {
+            for (String text = lines.readLine(); text != null; text = lines.readLine()) {
+                line[0]++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new Row<>(line[0], reader.readValue(text), null);
+                } catch (JsonProcessingException e) {
+                    return new Row<>(line[0], null, e.getOriginalMessage());
+                }
+            }
+            return null;
+        };
+    }
+
+    // The header row names the columns, in any order and only those that are filled in; list
+    // cells are separated by ';'.
+    private <T> RowReader<T> csvRows(InputStream in, Class<T> type) throws IOException {
+        MappingIterator<T> values = csvMapper.readerFor(type)
+                .with(csvMapper.schemaFor(type).withHeader().withColumnReordering(true))
+                .readValues(in);
+        return () -> {
+            if (!values.hasNextValue()) {
+                return null;
+            }
+            long line = values.getCurrentLocation().getLineNr();
+            try {
+                return new Row<>(line, values.nextValue(), null);
+            } catch (JsonProcessingException e) {
+                return new Row<>(line, null, e.getOriginalMessage());
+            }
+        };
+    }
+
+    private static class Report {
+        private long imported;
+        private long failed;
+        private final List<ImportReportDto.RowError> errors = new ArrayList<>();
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportReportDto.RowError(line, message));
+            }
+        }
+
+        ImportReportDto toDto() {
+            // Rejections of a chunk arrive after the parse errors of later lines.
+            errors.sort(Comparator.comparingLong(ImportReportDto.RowError::getLine));
+            return new ImportReportDto(imported, failed, errors);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.adventuretime.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.example.adventuretime.cache.CacheChangeListener;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.cache.InMemoryIndex;
+import org.example.adventuretime.cache.NameIndex;
+import org.example.adventuretime.dto.CountryNameDto;
+import org.example.adventuretime.repository.CountryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Country names held in a {@link NameIndex}. It is loaded once at startup and then kept current
+ * by the writes of this instance, applied after commit, and by the change feed for the others.
+ * Until the load has finished the queries return null and callers go to the database.
+ */
+@Component
+public class CountryNameIndex implements ApplicationRunner, InMemoryIndex, CacheChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(CountryNameIndex.class);
+
+    private final NameIndex index = new NameIndex();
+    private final CountryRepository countryRepository;
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public CountryNameIndex(CountryRepository countryRepository) {
+        this.countryRepository = countryRepository;
+    }
+
+    // Writes that land while the names are being read are replayed from the database afterwards,
+    // the snapshot may have been taken before them.
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        for (CountryNameDto country : countryRepository.findAllNames()) {
+            index.put(country.getId(), country.getName());
+        }
+        synchronized (changedWhileLoading) {
+            ready = true;
+        }
+        changedWhileLoading.forEach(this::reload);
+        changedWhileLoading.clear();
+        logger.info("Indexed {} country names in {} ms", index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public String indexName() {
+        return "country-names";
+    }
+
+    @Override
+    public long entryCount() {
+        return index.size();
+    }
+
+    @Override
+    public long weightedSize() {
+        return index.weightedSize();
+    }
+
+    public void update(Long id, String name) {
+        update(Collections.singletonMap(id, name));
+    }
+
+    // New names by ID, null for a deleted country; applied once the transaction has committed.
+    public void update(Map<Long, String> names) {
+        Runnable apply = () -> names.forEach((id, name) -> {
+            markIfLoading(id);
+            if (name == null) {
+                index.remove(id);
+            } else {
+                index.put(id, name);
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            apply.run();
+                        }
+                    });
+        } else {
+            apply.run();
+        }
+    }
+
+    @Override
+    public void changed(EntityType type, Long id) {
+        if (type == EntityType.COUNTRY) {
+            reload(id);
+        }
+    }
+
+    // Re-reads one name, for changes committed by another instance.
+    public void reload(Long id) {
+        if (markIfLoading(id)) {
+            return;
+        }
+        countryRepository.findNameById(id).ifPresentOrElse(
+                name -> index.put(id, name), () -> index.remove(id));
+    }
+
+    private boolean markIfLoading(Long id) {
+        synchronized (changedWhileLoading) {
+            if (!ready) {
+                changedWhileLoading.add(id);
+            }
+            return !ready;
+        }
+    }
+
+    /**
+     * IDs of the countries whose name matches a LIKE pattern, ascending. {@code %} matches any
+     * run of characters, {@code _} a single one and a backslash escapes the next character. A
+     * pattern starting with a literal is answered from the sorted names, any other pattern from
+     * the trigrams of its longest literal.
+     */
+    public List<Long> findIdsLike(String pattern) {
+        if (!ready) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        String prefix = null;
+        String longest = "";
+        for (int i = 0; i <= pattern.length(); i++) {
+            char c = i < pattern.length() ? pattern.charAt(i) : '%';
+            if (c == '\\' && i + 1 < pattern.length()) {
+                literal.append(pattern.charAt(++i));
+                continue;
+            }
+            if (c != '%' && c != '_') {
+                literal.append(c);
+                continue;
+            }
+            String key = NameIndex.normalize(literal.toString());
+            literal.setLength(0);
+            if (prefix == null) {
+                prefix = key;
+            }
+            if (key.length() > longest.length()) {
+                longest = key;
+            }
+            if (!key.isEmpty()) {
+                regex.append(Pattern.quote(key));
+            }
+            if (i < pattern.length()) {
+                regex.append(c == '%' ? ".*" : ".");
+            }
+        }
+        Collection<Long> candidates = prefix.isEmpty()
+                ? index.containing(longest)
+                : index.startingWith(prefix, -1);
+        Pattern matcher = Pattern.compile(regex.toString(), Pattern.DOTALL);
+        return candidates.stream()
+                .filter(id -> {
+                    String key = index.key(id);
+                    return key != null && matcher.matcher(key).matches();
+                })
+                .sorted()
+                .toList();
+    }
+
+    // Names starting with the query in name order, then names containing it elsewhere.
+    public List<CountryNameDto> autocomplete(String query, int limit) {
+        if (!ready) {
+            return null;
+        }
+        List<Long> ids = index.startingWith(query, limit);
+        if (ids.size() < limit) {
+            Set<Long> found = new HashSet<>(ids);
+            index.containing(query).stream()
+                    .filter(id -> !found.contains(id))
+                    .sorted(Comparator.comparing(index::key,
+                            Comparator.nullsLast(Comparator.naturalOrder())))
+                    .limit(limit - ids.size())
+                    .forEach(ids::add);
+        }
+        List<CountryNameDto> suggestions = new ArrayList<>();
+        for (Long id : ids) {
+            String name = index.name(id);
+            if (name != null) {
+                suggestions.add(new CountryNameDto(id, name));
+            }
+        }
+        return suggestions;
+    }
+}
@@ -1,20 +1,28 @@
 package org.example.adventuretime.service;
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.cache.JsonBytes;
+import org.example.adventuretime.config.BulkProperties;
+import org.example.adventuretime.config.CacheChangeFeed;
 import org.example.adventuretime.config.CacheConfig;
 import org.example.adventuretime.dto.CountryDto;
-import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.CountryNameDto;
 import org.example.adventuretime.mapper.CountryMapper;
-import org.example.adventuretime.mapper.TourMapper;
 import org.example.adventuretime.model.Country;
 import org.example.adventuretime.model.Tour;
 import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TextRow;
+import org.example.adventuretime.repository.TourCountryLinks;
 import org.example.adventuretime.repository.TourRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -26,23 +34,58 @@ public class CountryService {
     private final CountryRepository countryRepository;
     private final TourRepository tourRepository;
     private final CacheConfig cacheConfig;
+    private final CacheChangeFeed changeFeed;
+    private final EntityManager entityManager;
+    private final TourCountryLinks tourCountryLinks;
+    private final BulkProperties bulkProperties;
+    private final CountryNameIndex countryNameIndex;
+    private final TextSearchIndex textSearchIndex;
+    private final TourSearchIndex tourSearchIndex;
 
     public List<CountryDto> findAll() {
-        Collection<CountryDto> cachedCountries = cacheConfig.getAllCountries();
-        if (!cachedCountries.isEmpty()) {
-            return new ArrayList<>(cachedCountries);
+        List<CountryDto> cachedCountries = cacheConfig.getAllCountries();
+        if (cachedCountries != null) {
+            return cachedCountries;
         }
-        List<CountryDto> countries = countryRepository.findAll().stream()
-                .map(CountryMapper::toDto)
-                .toList();
-        countries.forEach(country -> cacheConfig.putCountry(country.getId(), country));
+        long version = cacheConfig.getAllCountriesVersion();
+        List<CountryDto> countries = CountryMapper.fromRows(countryRepository.findAllRows());
+        cacheConfig.putAllCountries(version, countries);
         return countries;
     }
 
+    public List<CountryDto> findPage(int page, int size) {
+        return findByIds(countryRepository.findIds(PageRequest.of(page, size)));
+    }
+
+    public List<CountryDto> findAfter(long after, int size) {
+        return findByIds(countryRepository.findIdsAfter(after, PageRequest.of(0, size)));
+    }
+
+    public long count() {
+        return countryRepository.count();
+    }
+
+    private List<CountryDto> findByIds(List<Long> ids) {
+        return PageLoader.load(ids, cacheConfig::getCountry,
+                missing -> CountryMapper.fromRows(countryRepository.findRowsByIdIn(missing)),
+                CountryDto::getId);
+    }
+
     public List<CountryDto> findByNameLike(String namePattern) {
-        return countryRepository.findByNameLike(namePattern).stream()
-                .map(CountryMapper::toDto)
-                .toList();
+        List<Long> ids = countryNameIndex.findIdsLike(namePattern);
+        if (ids == null) {
+            return CountryMapper.fromRows(countryRepository.findRowsByNameLike(namePattern));
+        }
+        return findByIds(ids);
+    }
+
+    public List<CountryNameDto> autocomplete(String query, int limit) {
+        List<CountryNameDto> suggestions = countryNameIndex.autocomplete(query, limit);
+        if (suggestions != null) {
+            return suggestions;
+        }
+        return countryRepository.findNamesByNameLike(LikePatterns.escape(query) + "%",
+                PageRequest.of(0, limit));
     }
 
     public Optional<CountryDto> findById(Long id) {
@@ -50,55 +93,116 @@ public class CountryService {
         if (cachedCountry != null) {
             return Optional.of(cachedCountry);
         }
-        Optional<CountryDto> countryDto = countryRepository.findById(id)
-                .map(CountryMapper::toDto);
-        countryDto.ifPresent(country -> cacheConfig.putCountry(id, country));
-        return countryDto;
+        return Optional.ofNullable(cacheConfig.loadCountry(id, this::loadCountry));
+    }
+
+    // Response body of GET /api/countries/{id}, served without re-serializing hot entries.
+    public Optional<JsonBytes> findJsonById(Long id) {
+        return Optional.ofNullable(cacheConfig.loadCountryJson(id, this::loadCountry));
+    }
+
+    private CountryDto loadCountry(Long id) {
+        List<CountryDto> countries = CountryMapper.fromRows(countryRepository.findRowsById(id));
+        return countries.isEmpty() ? null : countries.get(0);
     }
 
+    @Transactional
     public CountryDto save(CountryDto countryDto) {
-        Country country = CountryMapper.toEntity(countryDto);
-        Country saved = countryRepository.save(country);
+        Country stored = countryDto.getId() == null ? null
+                : countryRepository.findById(countryDto.getId()).orElse(null);
+        Country saved = countryRepository.saveAndFlush(toEntity(countryDto, stored));
         CountryDto savedDto = CountryMapper.toDto(saved);
-        cacheConfig.putCountry(savedDto.getId(), savedDto);
+        if (stored == null) {
+            cacheConfig.putCountry(savedDto.getId(), savedDto);
+        } else {
+            // An update, so the tours embedding the old copy are evicted with it.
+            cacheConfig.invalidateCountry(saved.getId());
+        }
+        cacheConfig.invalidateCountryCollections();
+        countryNameIndex.update(saved.getId(), saved.getName());
+        textSearchIndex.update(EntityType.COUNTRY, saved.getId(), saved.getName(),
+                saved.getAttractions());
+        tourSearchIndex.changed(EntityType.COUNTRY, saved.getId());
+        changeFeed.publish(EntityType.COUNTRY, saved.getId());
         return savedDto;
     }
 
+    // A known ID updates the stored country in place, so its current version is kept and the
+    // write passes the optimistic lock check; an unknown ID is inserted under a generated one.
+    private static Country toEntity(CountryDto countryDto, Country stored) {
+        if (stored == null) {
+            Country country = CountryMapper.toEntity(countryDto);
+            country.setId(null);
+            return country;
+        }
+        CountryMapper.copyFields(countryDto, stored);
+        return stored;
+    }
+
+    // Inserts go out as JDBC batches; after every batch the persistence context is flushed and
+    // cleared so memory stays flat however many countries are imported. New entries are not
+    // pushed into the cache, a large import would only evict the hot ones.
+    @Transactional
+    public List<CountryDto> saveAll(List<CountryDto> countryDtos) {
+        int batchSize = bulkProperties.getBatchSize();
+        List<CountryDto> saved = new ArrayList<>(countryDtos.size());
+        Map<Long, String> names = new HashMap<>();
+        List<TextRow> texts = new ArrayList<>(countryDtos.size());
+        for (CountryDto countryDto : countryDtos) {
+            Country country = CountryMapper.toEntity(countryDto);
+            country.setId(null);
+            entityManager.persist(country);
+            saved.add(CountryMapper.toDto(country));
+            names.put(country.getId(), country.getName());
+            texts.add(new TextRow(country.getId(), country.getName(), country.getAttractions()));
+            if (saved.size() % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        List<Long> ids = saved.stream().map(CountryDto::getId).toList();
+        cacheConfig.invalidateCountryCollections();
+        cacheConfig.forgetMissing(EntityType.COUNTRY, ids);
+        countryNameIndex.update(names);
+        textSearchIndex.update(EntityType.COUNTRY, texts);
+        tourSearchIndex.changed(EntityType.COUNTRY, ids);
+        changeFeed.publishInserts(EntityType.COUNTRY, ids);
+        return saved;
+    }
+
     @Transactional
     public CountryDto updateCountry(Long id, CountryDto countryDto) {
         Country country = countryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(COUNTRY_NOT_FOUND));
-        country.setName(countryDto.getName());
-        country.setAvailable(countryDto.isAvailable());
-        country.setAttractions(countryDto.getAttractions());
-        country.setVisaCost(countryDto.getVisaCost());
-        country.setNationalLanguages(countryDto.getNationalLanguages());
-        Country updatedCountry = countryRepository.save(country);
-        CountryDto updatedDto = CountryMapper.toDto(updatedCountry);
-
-        cacheConfig.putCountry(id, updatedDto);
-
-        for (Tour tour : country.getTours()) {
-            TourDto tourDto = TourMapper.toDto(tour);
-            cacheConfig.putTour(tour.getId(), tourDto);
-        }
-
-        return updatedDto;
+        CountryMapper.copyFields(countryDto, country);
+        Country updatedCountry = countryRepository.saveAndFlush(country);
+        cacheConfig.invalidateCountry(id);
+        countryNameIndex.update(id, updatedCountry.getName());
+        textSearchIndex.update(EntityType.COUNTRY, id, updatedCountry.getName(),
+                updatedCountry.getAttractions());
+        tourSearchIndex.changed(EntityType.COUNTRY, id);
+        changeFeed.publish(EntityType.COUNTRY, id);
+        return CountryMapper.toDto(updatedCountry);
     }
 
     @Transactional
     public void deleteCountry(Long id) {
-        Country country = countryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException(COUNTRY_NOT_FOUND));
-        List<Tour> toursToUpdate = new ArrayList<>(country.getTours());
-        for (Tour tour : toursToUpdate) {
-            tour.getCountries().remove(country);
-            tourRepository.save(tour);
-            TourDto tourDto = TourMapper.toDto(tour);
-            cacheConfig.putTour(tour.getId(), tourDto);
+        if (!countryRepository.existsById(id)) {
+            throw new RuntimeException(COUNTRY_NOT_FOUND);
+        }
+        List<Long> tourIds = tourRepository.findIdsByCountryId(id);
+        if (!tourIds.isEmpty()) {
+            tourRepository.incrementVersions(tourIds);
         }
-        countryRepository.delete(country);
-        cacheConfig.removeCountry(id);
+        tourCountryLinks.deleteByCountry(id);
+        countryRepository.bulkDeleteById(id);
+        cacheConfig.invalidateCountry(id);
+        countryNameIndex.update(id, null);
+        textSearchIndex.remove(EntityType.COUNTRY, id);
+        tourSearchIndex.changed(EntityType.COUNTRY, id);
+        changeFeed.publish(EntityType.COUNTRY, id);
     }
 
     @Transactional
@@ -114,14 +218,15 @@ public class CountryService {
 
     private CountryDto getCountryDto(Long countryId, Long tourId, Country country, Tour tour) {
         countryRepository.save(country);
-        tourRepository.save(tour);
-
-        CountryDto countryDto = CountryMapper.toDto(country);
-        TourDto tourDto = TourMapper.toDto(tour);
-
-        cacheConfig.putCountry(countryId, countryDto);
-        cacheConfig.putTour(tourId, tourDto);
-        return countryDto;
+        // Writes both, so the versions read below are the bumped ones.
+        tourRepository.saveAndFlush(tour);
+        cacheConfig.invalidateCountry(countryId);
+        cacheConfig.invalidateTour(tourId);
+        tourSearchIndex.changed(EntityType.COUNTRY, countryId);
+        tourSearchIndex.changed(EntityType.TOUR, tourId);
+        changeFeed.publish(EntityType.COUNTRY, countryId);
+        changeFeed.publish(EntityType.TOUR, tourId);
+        return CountryMapper.toDto(country);
     }
 
     @Transactional
@@ -0,0 +1,16 @@
+package org.example.adventuretime.service;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+    NDJSON,
+    CSV;
+
+    public static final String CSV_VALUE = "text/csv";
+
+    private static final MediaType CSV_TYPE = MediaType.parseMediaType(CSV_VALUE);
+
+    public static ImportFormat of(String contentType) {
+        return CSV_TYPE.isCompatibleWith(MediaType.parseMediaType(contentType)) ? CSV : NDJSON;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.adventuretime.service;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Escapes user input for a LIKE pattern, with the backslash as MySQL's default escape character.
+ */
+@UtilityClass
+class LikePatterns {
+
+    String escape(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
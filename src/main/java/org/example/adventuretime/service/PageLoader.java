@@ -0,0 +1,40 @@
+package org.example.adventuretime.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Turns one page of IDs into DTOs in the same order: entries the cache holds are taken from it,
+ * the rest are fetched together in a single query.
+ */
+@UtilityClass
+class PageLoader {
+
+    <T> List<T> load(List<Long> ids, Function<Long, T> cached,
+                     Function<List<Long>, List<T>> fetchAll, Function<T, Long> idOf) {
+        Map<Long, T> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            T value = cached.apply(id);
+            if (value != null) {
+                found.put(id, value);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (T value : fetchAll.apply(missing)) {
+                found.put(idOf.apply(value), value);
+            }
+        }
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.adventuretime.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.dto.SearchResultDto;
+import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TextRow;
+import org.example.adventuretime.repository.TourRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    private final TextSearchIndex textSearchIndex;
+    private final TourRepository tourRepository;
+    private final CountryRepository countryRepository;
+
+    // Until the index is built the query is matched as one substring and left unranked.
+    public List<SearchResultDto> search(String query, int limit) {
+        List<SearchResultDto> results = textSearchIndex.search(query, limit);
+        if (results != null) {
+            return results;
+        }
+        String pattern = "%" + LikePatterns.escape(query) + "%";
+        PageRequest first = PageRequest.of(0, limit);
+        List<SearchResultDto> matches = new ArrayList<>();
+        addAll(matches, EntityType.TOUR, tourRepository.findTextRowsByTextLike(pattern, first));
+        addAll(matches, EntityType.COUNTRY,
+                countryRepository.findTextRowsByTextLike(pattern, first));
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private static void addAll(List<SearchResultDto> results, EntityType type,
+                               List<TextRow> rows) {
+        rows.forEach(row -> results.add(new SearchResultDto(type, row.id(), row.name(), 0)));
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.adventuretime.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.adventuretime.cache.CacheChangeListener;
+import org.example.adventuretime.cache.CacheKey;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.cache.HeapSizes;
+import org.example.adventuretime.cache.InMemoryIndex;
+import org.example.adventuretime.cache.TextIndex;
+import org.example.adventuretime.dto.SearchResultDto;
+import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TextRow;
+import org.example.adventuretime.repository.TourRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Full-text index over tour descriptions and country attractions, one BM25 corpus for both so
+ * their scores compare. Loaded at startup, updated after commit by the tour and country writes
+ * of this instance and reloaded per ID from the change feed for the others. Until the load has
+ * finished {@link #search} returns null and callers go to the database.
+ */
+@Component
+public class TextSearchIndex implements ApplicationRunner, InMemoryIndex, CacheChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(TextSearchIndex.class);
+
+    private final TextIndex<CacheKey> index = new TextIndex<>();
+    private final ConcurrentHashMap<CacheKey, String> names = new ConcurrentHashMap<>();
+    private final TourRepository tourRepository;
+    private final CountryRepository countryRepository;
+    private final Set<CacheKey> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public TextSearchIndex(TourRepository tourRepository, CountryRepository countryRepository) {
+        this.tourRepository = tourRepository;
+        this.countryRepository = countryRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        tourRepository.findTextRows().forEach(row -> put(CacheKey.tour(row.id()), row));
+        countryRepository.findTextRows().forEach(row -> put(CacheKey.country(row.id()), row));
+        synchronized (changedWhileLoading) {
+            ready = true;
+        }
+        changedWhileLoading.forEach(key -> reload(key.type(), key.id()));
+        changedWhileLoading.clear();
+        logger.info("Indexed {} texts for search in {} ms", index.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public String indexName() {
+        return "text-search";
+    }
+
+    @Override
+    public long entryCount() {
+        return index.size();
+    }
+
+    // The terms, plus the display names with their keys.
+    @Override
+    public long weightedSize() {
+        long weight = index.weightedSize();
+        for (String name : names.values()) {
+            weight += HeapSizes.HASH_MAP_NODE + HeapSizes.OBJECT_HEADER + HeapSizes.REFERENCE
+                    + HeapSizes.BOXED + HeapSizes.string(name);
+        }
+        return weight;
+    }
+
+    public void update(EntityType type, Long id, String name, String text) {
+        update(type, List.of(new TextRow(id, name, text)));
+    }
+
+    // Applied once the transaction has committed.
+    public void update(EntityType type, List<TextRow> rows) {
+        afterCommit(() -> rows.forEach(row -> {
+            CacheKey key = new CacheKey(type, row.id());
+            markIfLoading(key);
+            put(key, row);
+        }));
+    }
+
+    public void remove(EntityType type, Long id) {
+        CacheKey key = new CacheKey(type, id);
+        afterCommit(() -> {
+            markIfLoading(key);
+            delete(key);
+        });
+    }
+
+    // Transports carry no text.
+    @Override
+    public void changed(EntityType type, Long id) {
+        if (type != EntityType.TRANSPORT) {
+            reload(type, id);
+        }
+    }
+
+    // Re-reads one text, for changes committed by another instance.
+    public void reload(EntityType type, Long id) {
+        CacheKey key = new CacheKey(type, id);
+        if (markIfLoading(key)) {
+            return;
+        }
+        Optional<TextRow> row = switch (type) {
+            case TOUR -> tourRepository.findTextRowById(id);
+            case COUNTRY -> countryRepository.findTextRowById(id);
+            case TRANSPORT -> Optional.empty();
+        };
+        row.ifPresentOrElse(found -> put(key, found), () -> delete(key));
+    }
+
+    /**
+     * Tours and countries whose text contains any of the query words, best BM25 score first;
+     * null until the index is built.
+     */
+    public List<SearchResultDto> search(String query, int limit) {
+        if (!ready) {
+            return null;
+        }
+        List<SearchResultDto> results = new ArrayList<>();
+        for (TextIndex.Hit<CacheKey> hit : index.search(query, limit)) {
+            CacheKey key = hit.key();
+            results.add(new SearchResultDto(key.type(), key.id(), names.get(key), hit.score()));
+        }
+        return results;
+    }
+
+    private void put(CacheKey key, TextRow row) {
+        index.put(key, row.text());
+        if (row.name() == null) {
+            names.remove(key);
+        } else {
+            names.put(key, row.name());
+        }
+    }
+
+    private void delete(CacheKey key) {
+        index.remove(key);
+        names.remove(key);
+    }
+
+    private boolean markIfLoading(CacheKey key) {
+        synchronized (changedWhileLoading) {
+            if (!ready) {
+                changedWhileLoading.add(key);
+            }
+            return !ready;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            action.run();
+                        }
+                    });
+        } else {
+            action.run();
+        }
+    }
+}
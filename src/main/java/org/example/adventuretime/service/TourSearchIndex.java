@@ -0,0 +1,379 @@
+package org.example.adventuretime.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.example.adventuretime.cache.CacheChangeListener;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.cache.HeapSizes;
+import org.example.adventuretime.cache.InMemoryIndex;
+import org.example.adventuretime.cache.NameIndex;
+import org.example.adventuretime.cache.Postings;
+import org.example.adventuretime.dto.TourSearchCriteria;
+import org.example.adventuretime.dto.TransportDto;
+import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.CountryRow;
+import org.example.adventuretime.repository.TourRepository;
+import org.example.adventuretime.repository.TourRow;
+import org.example.adventuretime.repository.TransportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bitmap indexes over the searchable attributes of tours, countries and transports. A search
+ * intersects the tour bitmaps of each filter; country and transport filters are first evaluated
+ * on their own entities and then mapped to tours through the link postings.
+ *
+ * <p>Every entity the services write, or the change feed reports from another instance, is
+ * re-read once its transaction has committed, so the index follows the same writes the caches
+ * do. It is built at startup;
+ * until then {@link #search} returns null and callers query the database.
+ */
+@Component
+public class TourSearchIndex implements ApplicationRunner, InMemoryIndex, CacheChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(TourSearchIndex.class);
+
+    private final TourRepository tourRepository;
+    private final CountryRepository countryRepository;
+    private final TransportRepository transportRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet tours = new BitSet();
+    private final Postings<Integer> durations = new Postings<>();
+    private final Postings<Long> tourCountries = new Postings<>();
+    private final Postings<Long> tourTransports = new Postings<>();
+    private final BitSet countries = new BitSet();
+    private final Postings<Boolean> countryAvailability = new Postings<>();
+    private final Postings<Double> visaCosts = new Postings<>();
+    private final BitSet transports = new BitSet();
+    private final Postings<String> transportNames = new Postings<>();
+    private final Postings<Double> transportCosts = new Postings<>();
+
+    private final Map<EntityType, Set<Long>> changedWhileLoading = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public TourSearchIndex(TourRepository tourRepository, CountryRepository countryRepository,
+                           TransportRepository transportRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.tourRepository = tourRepository;
+        this.countryRepository = countryRepository;
+        this.transportRepository = transportRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<TourRow> rows = tourRepository.streamAllRows()) {
+                List<TourRow> tour = new ArrayList<>();
+                rows.forEach(row -> {
+                    if (!tour.isEmpty() && !tour.get(0).id().equals(row.id())) {
+                        putTour(tour);
+                        tour.clear();
+                    }
+                    tour.add(row);
+                });
+                if (!tour.isEmpty()) {
+                    putTour(tour);
+                }
+            }
+        });
+        synchronized (changedWhileLoading) {
+            ready = true;
+        }
+        changedWhileLoading.forEach(this::refresh);
+        changedWhileLoading.clear();
+        logger.info("Indexed {} tours for search in {} ms", tours.cardinality(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public String indexName() {
+        return "tour-search";
+    }
+
+    @Override
+    public long entryCount() {
+        return ready ? tours.cardinality() : 0;
+    }
+
+    // Zero while loading, which runs without the lock.
+    @Override
+    public long weightedSize() {
+        if (!ready) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            long weight = HeapSizes.bitSet(tours) + HeapSizes.bitSet(countries)
+                    + HeapSizes.bitSet(transports);
+            for (Postings<?> postings : List.of(durations, tourCountries, tourTransports,
+                    countryAvailability, visaCosts, transportNames, transportCosts)) {
+                weight += postings.weightedSize();
+            }
+            return weight;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void changed(EntityType type, Long id) {
+        changed(type, List.of(id));
+    }
+
+    // Queues entities for a reload after commit; one reload per type and transaction.
+    public void changed(EntityType type, Collection<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(type, ids);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<EntityType, Set<Long>> pending =
+                (Map<EntityType, Set<Long>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<EntityType, Set<Long>> changes = new EnumMap<>(EntityType.class);
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            changes.forEach(TourSearchIndex.this::refresh);
+                        }
+
+                        @Override
+                        public void afterCompletion(int status) {
+                            TransactionSynchronizationManager.unbindResource(TourSearchIndex.this);
+                        }
+                    });
+            pending = changes;
+        }
+        pending.computeIfAbsent(type, t -> new HashSet<>()).addAll(ids);
+    }
+
+    private void refresh(EntityType type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        synchronized (changedWhileLoading) {
+            if (!ready) {
+                changedWhileLoading.computeIfAbsent(type, t -> ConcurrentHashMap.newKeySet())
+                        .addAll(ids);
+                return;
+            }
+        }
+        switch (type) {
+            case TOUR -> refreshTours(ids);
+            case COUNTRY -> refreshCountries(ids);
+            case TRANSPORT -> refreshTransports(ids);
+        }
+    }
+
+    private void refreshTours(Collection<Long> ids) {
+        Map<Long, List<TourRow>> rowsByTour = new LinkedHashMap<>();
+        for (TourRow row : tourRepository.findRowsByIdIn(ids)) {
+            rowsByTour.computeIfAbsent(row.id(), id -> new ArrayList<>()).add(row);
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                List<TourRow> rows = rowsByTour.get(id);
+                if (rows == null) {
+                    removeTour(id);
+                } else {
+                    putTour(rows);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void refreshCountries(Collection<Long> ids) {
+        Map<Long, CountryRow> found = new LinkedHashMap<>();
+        for (CountryRow row : countryRepository.findRowsByIdIn(ids)) {
+            found.putIfAbsent(row.id(), row);
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                CountryRow row = found.get(id);
+                if (row == null) {
+                    countries.clear(Postings.bit(id));
+                    countryAvailability.remove(id);
+                    visaCosts.remove(id);
+                    tourCountries.removeValue(id);
+                } else {
+                    putCountry(id, row.available(), row.visaCost());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void refreshTransports(Collection<Long> ids) {
+        Map<Long, TransportDto> found = new LinkedHashMap<>();
+        for (TransportDto transport : transportRepository.findDtosByIdIn(ids)) {
+            found.put(transport.getId(), transport);
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                TransportDto transport = found.get(id);
+                if (transport == null) {
+                    transports.clear(Postings.bit(id));
+                    transportNames.remove(id);
+                    transportCosts.remove(id);
+                    tourTransports.removeValue(id);
+                } else {
+                    putTransport(id, transport.getName(), transport.getCost());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The rows of one tour, carrying its countries and transport as well.
+    private void putTour(List<TourRow> rows) {
+        TourRow first = rows.get(0);
+        long id = first.id();
+        tours.set(Postings.bit(id));
+        durations.put(id, first.durationDays());
+        Set<Long> countryIds = new HashSet<>();
+        for (TourRow row : rows) {
+            if (row.countryId() != null) {
+                countryIds.add(row.countryId());
+                putCountry(row.countryId(), row.countryAvailable(), row.countryVisaCost());
+            }
+        }
+        tourCountries.put(id, countryIds);
+        tourTransports.put(id, first.transportId());
+        if (first.transportId() != null) {
+            putTransport(first.transportId(), first.transportName(), first.transportCost());
+        }
+    }
+
+    private void removeTour(long id) {
+        tours.clear(Postings.bit(id));
+        durations.remove(id);
+        tourCountries.remove(id);
+        tourTransports.remove(id);
+    }
+
+    private void putCountry(long id, Boolean available, Double visaCost) {
+        countries.set(Postings.bit(id));
+        countryAvailability.put(id, available);
+        visaCosts.put(id, visaCost);
+    }
+
+    private void putTransport(long id, String name, Double cost) {
+        transports.set(Postings.bit(id));
+        transportNames.put(id, name == null ? null : NameIndex.normalize(name));
+        transportCosts.put(id, cost);
+    }
+
+    /**
+     * IDs of the tours matching every given filter, ascending, starting after {@code after},
+     * which must not be negative. Null until the index is built.
+     */
+    public List<Long> search(TourSearchCriteria criteria, long after, int limit) {
+        if (!ready) {
+            return null;
+        }
+        if (!Postings.fits(after + 1)) {
+            return List.of();
+        }
+        BitSet matches;
+        lock.readLock().lock();
+        try {
+            matches = (BitSet) tours.clone();
+            if (criteria.getMinDays() != null || criteria.getMaxDays() != null) {
+                matches.and(durations.range(criteria.getMinDays(), criteria.getMaxDays()));
+            }
+            if (hasCountryFilter(criteria)) {
+                matches.and(tourCountries.anyOf(ids(matchingCountries(criteria))));
+            }
+            if (hasTransportFilter(criteria)) {
+                matches.and(tourTransports.anyOf(ids(matchingTransports(criteria))));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (int id = matches.nextSetBit(Postings.bit(after) + 1);
+             id >= 0 && ids.size() < limit; id = matches.nextSetBit(id + 1)) {
+            ids.add((long) id);
+        }
+        return ids;
+    }
+
+    private BitSet matchingCountries(TourSearchCriteria criteria) {
+        BitSet matches = (BitSet) countries.clone();
+        if (criteria.getCountryIds() != null) {
+            BitSet wanted = new BitSet();
+            criteria.getCountryIds().stream()
+                    .filter(id -> id != null && Postings.fits(id))
+                    .forEach(id -> wanted.set(Postings.bit(id)));
+            matches.and(wanted);
+        }
+        if (criteria.getCountryAvailable() != null) {
+            matches.and(countryAvailability.get(criteria.getCountryAvailable()));
+        }
+        if (criteria.getMaxVisaCost() != null) {
+            matches.and(visaCosts.range(null, criteria.getMaxVisaCost()));
+        }
+        return matches;
+    }
+
+    private BitSet matchingTransports(TourSearchCriteria criteria) {
+        BitSet matches = (BitSet) transports.clone();
+        if (criteria.getTransport() != null) {
+            matches.and(transportNames.get(NameIndex.normalize(criteria.getTransport())));
+        }
+        if (criteria.getMinTransportCost() != null || criteria.getMaxTransportCost() != null) {
+            matches.and(transportCosts.range(criteria.getMinTransportCost(),
+                    criteria.getMaxTransportCost()));
+        }
+        return matches;
+    }
+
+    private static boolean hasCountryFilter(TourSearchCriteria criteria) {
+        return criteria.getCountryIds() != null || criteria.getCountryAvailable() != null
+                || criteria.getMaxVisaCost() != null;
+    }
+
+    private static boolean hasTransportFilter(TourSearchCriteria criteria) {
+        return criteria.getTransport() != null || criteria.getMinTransportCost() != null
+                || criteria.getMaxTransportCost() != null;
+    }
+
+    private static List<Long> ids(BitSet bits) {
+        return bits.stream().mapToObj(id -> (long) id).toList();
+    }
+}
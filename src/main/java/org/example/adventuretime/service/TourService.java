@@ -1,23 +1,48 @@
 package org.example.adventuretime.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.transaction.Transactional;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.cache.JsonBytes;
+import org.example.adventuretime.config.BulkProperties;
+import org.example.adventuretime.config.CacheChangeFeed;
 import org.example.adventuretime.config.CacheConfig;
-import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.ImportReportDto;
 import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.TourImportDto;
+import org.example.adventuretime.dto.TourSearchCriteria;
 import org.example.adventuretime.dto.TransportDto;
-import org.example.adventuretime.mapper.CountryMapper;
+import org.example.adventuretime.exception.ValidationException;
 import org.example.adventuretime.mapper.TourMapper;
 import org.example.adventuretime.mapper.TransportMapper;
 import org.example.adventuretime.model.Country;
 import org.example.adventuretime.model.Tour;
 import org.example.adventuretime.model.Transport;
 import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TextRow;
+import org.example.adventuretime.repository.TourCountryLinks;
 import org.example.adventuretime.repository.TourRepository;
+import org.example.adventuretime.repository.TourRow;
+import org.example.adventuretime.repository.TransportRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -28,126 +53,405 @@ public class TourService {
 
     private final TourRepository tourRepository;
     private final CountryRepository countryRepository;
+    private final TransportRepository transportRepository;
     private final CacheConfig cacheConfig;
+    private final CacheChangeFeed changeFeed;
+    private final BulkImporter bulkImporter;
+    private final TourCountryLinks tourCountryLinks;
+    private final BulkProperties bulkProperties;
+    private final ObjectMapper objectMapper;
+    private final TourSearchIndex tourSearchIndex;
+    private final TextSearchIndex textSearchIndex;
 
     public List<TourDto> findAll() {
-        Collection<TourDto> cachedTours = cacheConfig.getAllTours();
-        if (!cachedTours.isEmpty()) {
-            return new ArrayList<>(cachedTours);
-        }
-        List<TourDto> tours = tourRepository.findAll().stream()
-                .map(TourMapper::toDto)
-                .toList();
-        tours.forEach(tour -> cacheConfig.putTour(tour.getId(), tour));
+        List<TourDto> cachedTours = cacheConfig.getAllTours();
+        if (cachedTours != null) {
+            return cachedTours;
+        }
+        long version = cacheConfig.getAllToursVersion();
+        List<TourDto> tours = TourMapper.fromRows(tourRepository.findAllRows());
+        cacheConfig.putAllTours(version, tours);
         return tours;
     }
 
+    public List<TourDto> findPage(int page, int size) {
+        return findByIds(tourRepository.findIds(PageRequest.of(page, size)));
+    }
+
+    public List<TourDto> findAfter(long after, int size) {
+        return findByIds(tourRepository.findIdsAfter(after, PageRequest.of(0, size)));
+    }
+
+    public long count() {
+        return tourRepository.count();
+    }
+
+    private List<TourDto> findByIds(List<Long> ids) {
+        return PageLoader.load(ids, cacheConfig::getTour,
+                missing -> TourMapper.fromRows(tourRepository.findRowsByIdIn(missing)),
+                TourDto::getId);
+    }
+
+    public List<TourDto> search(TourSearchCriteria criteria, long after, int size) {
+        List<Long> ids = tourSearchIndex.search(criteria, after, size);
+        if (ids == null) {
+            List<Long> countryIds = criteria.getCountryIds();
+            ids = tourRepository.searchIds(after, criteria.getMinDays(), criteria.getMaxDays(),
+                    countryIds == null, countryIds == null ? List.of(0L) : countryIds,
+                    criteria.getCountryAvailable(), criteria.getMaxVisaCost(),
+                    criteria.getTransport(), criteria.getMinTransportCost(),
+                    criteria.getMaxTransportCost(), PageRequest.of(0, size));
+        }
+        return findByIds(ids);
+    }
+
     public Optional<TourDto> findById(Long id) {
         TourDto cachedTour = cacheConfig.getTour(id);
         if (cachedTour != null) {
             return Optional.of(cachedTour);
         }
-        Optional<TourDto> tourDto = tourRepository.findById(id)
-                .map(TourMapper::toDto);
-        tourDto.ifPresent(tour -> cacheConfig.putTour(id, tour));
-        return tourDto;
+        return Optional.ofNullable(cacheConfig.loadTour(id, this::loadTour));
     }
 
+    // Response body of GET /api/tours/{id}, served without re-serializing hot entries.
+    public Optional<JsonBytes> findJsonById(Long id) {
+        return Optional.ofNullable(cacheConfig.loadTourJson(id, this::loadTour));
+    }
+
+    private TourDto loadTour(Long id) {
+        List<TourDto> tours = TourMapper.fromRows(tourRepository.findRowsById(id));
+        return tours.isEmpty() ? null : tours.get(0);
+    }
+
+    @Transactional
     public TourDto save(TourDto tourDto) {
-        Tour tour = TourMapper.toEntity(tourDto);
-        Tour saved = tourRepository.save(tour);
+        Tour stored = tourDto.getId() == null ? null
+                : tourRepository.findById(tourDto.getId()).orElse(null);
+        Tour saved = tourRepository.saveAndFlush(toEntity(tourDto, stored));
         TourDto savedDto = TourMapper.toDto(saved);
-        cacheConfig.putTour(savedDto.getId(), savedDto);
+        if (stored == null) {
+            cacheConfig.putTour(savedDto.getId(), savedDto);
+        } else {
+            // An update, so the countries embedding the old copy are evicted with it.
+            cacheConfig.invalidateTour(saved.getId());
+        }
+        cacheConfig.invalidateTourCollections();
+        if (tourDto.getId() != null || saved.getTransport() != null) {
+            // The transport may arrive with its ID only, or replace another one.
+            cacheConfig.invalidateToursByTransport();
+        }
+        textSearchIndex.update(EntityType.TOUR, saved.getId(), saved.getName(),
+                saved.getDescription());
+        tourSearchIndex.changed(EntityType.TOUR, saved.getId());
+        changeFeed.publish(EntityType.TOUR, saved.getId());
         return savedDto;
     }
 
+    // A known ID updates the stored tour in place, so its current version is kept and the write
+    // passes the optimistic lock check; an unknown ID is inserted under a generated one.
+    private Tour toEntity(TourDto tourDto, Tour stored) {
+        Tour tour = stored;
+        if (tour == null) {
+            tour = TourMapper.toEntity(tourDto);
+            tour.setId(null);
+        } else {
+            TourMapper.copyFields(tourDto, tour);
+        }
+        tour.setTransport(managedTransport(tourDto.getTransport()));
+        return tour;
+    }
+
+    // The stored transport the DTO points at; its other fields come from the client and are not
+    // written, so the saved tour and its cached copy carry the transport as it is in the database.
+    private Transport managedTransport(TransportDto transportDto) {
+        if (transportDto == null) {
+            return null;
+        }
+        Long transportId = transportDto.getId();
+        if (transportId == null) {
+            throw new ValidationException("Transport ID must not be null");
+        }
+        return transportRepository.findById(transportId)
+                .orElseThrow(() -> new ValidationException(
+                        "Transport " + transportId + " not found"));
+    }
+
+    // Writes every tour with its countries and transport as one NDJSON line. The rows arrive
+    // ordered by tour from a forward-only cursor, so only the current tour is held in memory;
+    // they are projections, nothing piles up in the persistence context.
     @Transactional
-    public void deleteById(Long id) {
-        Tour tour = tourRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException(TOUR_NOT_FOUND));
-        List<Country> countriesToUpdate = new ArrayList<>(tour.getCountries());
+    public void exportTours(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(TourDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+             Stream<TourRow> rows = tourRepository.streamAllRows()) {
+            generator.setRootValueSeparator(null);
+            List<TourRow> tourRows = new ArrayList<>();
+            Iterator<TourRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                TourRow row = iterator.next();
+                if (!tourRows.isEmpty() && !tourRows.get(0).id().equals(row.id())) {
+                    writeLine(writer, generator, tourRows);
+                }
+                tourRows.add(row);
+            }
+            if (!tourRows.isEmpty()) {
+                writeLine(writer, generator, tourRows);
+            }
+        }
+    }
+
+    private static void writeLine(ObjectWriter writer, JsonGenerator generator,
+                                  List<TourRow> tourRows) throws IOException {
+        writer.writeValue(generator, TourMapper.fromRows(tourRows).get(0));
+        generator.writeRaw('\n');
+        tourRows.clear();
+    }
 
-        for (Country country : countriesToUpdate) {
-            country.getTours().remove(tour);
-            countryRepository.save(country);
-            CountryDto countryDto = CountryMapper.toDto(country);
-            cacheConfig.putCountry(country.getId(), countryDto);
+    public ImportReportDto importTours(InputStream in, ImportFormat format) {
+        return bulkImporter.run(in, format, TourImportDto.class, TourService::importError,
+                this::importChunk);
+    }
+
+    private static String importError(TourImportDto tour) {
+        if (tour.getName() == null || tour.getName().isEmpty()) {
+            return "Tour name is required";
+        }
+        if (tour.getDescription() == null || tour.getDescription().isEmpty()) {
+            return "Tour description is required";
+        }
+        if (tour.getDurationDays() == null || tour.getDurationDays() <= 0) {
+            return "Duration days must be a positive integer";
         }
+        if (tour.getCountryIds() != null && tour.getCountryIds().contains(null)) {
+            return "Country IDs must not be null";
+        }
+        return null;
+    }
 
-        tourRepository.delete(tour);
-        cacheConfig.removeTour(id);
+    // Linked transports and countries are looked up once per chunk; rows referring to missing
+    // ones are rejected. Only the owning side of the links is written, the countries' own tour
+    // collections are not loaded.
+    private void importChunk(BulkImporter.Chunk<TourImportDto> chunk) {
+        Set<Long> transportIds = new HashSet<>();
+        Set<Long> countryIds = new HashSet<>();
+        for (BulkImporter.Row<TourImportDto> row : chunk.rows()) {
+            if (row.value().getTransportId() != null) {
+                transportIds.add(row.value().getTransportId());
+            }
+            if (row.value().getCountryIds() != null) {
+                countryIds.addAll(row.value().getCountryIds());
+            }
+        }
+        Map<Long, Transport> transports = transportRepository.findAllById(transportIds).stream()
+                .collect(Collectors.toMap(Transport::getId, Function.identity()));
+        Map<Long, Country> countries = countryRepository.findAllById(countryIds).stream()
+                .collect(Collectors.toMap(Country::getId, Function.identity()));
+
+        List<Tour> tours = new ArrayList<>();
+        Set<Long> linkedCountries = new HashSet<>();
+        for (BulkImporter.Row<TourImportDto> row : chunk.rows()) {
+            TourImportDto dto = row.value();
+            Long transportId = dto.getTransportId();
+            if (transportId != null && !transports.containsKey(transportId)) {
+                chunk.reject(row, "Transport " + transportId + " not found");
+                continue;
+            }
+            List<Long> ids = dto.getCountryIds() == null ? List.of() : dto.getCountryIds();
+            Long missing = ids.stream()
+                    .filter(id -> !countries.containsKey(id))
+                    .findFirst()
+                    .orElse(null);
+            if (missing != null) {
+                chunk.reject(row, "Country " + missing + " not found");
+                continue;
+            }
+            Tour tour = new Tour();
+            tour.setName(dto.getName());
+            tour.setDescription(dto.getDescription());
+            tour.setDurationDays(dto.getDurationDays());
+            tour.setTransport(transportId == null ? null : transports.get(transportId));
+            ids.forEach(id -> tour.getCountries().add(countries.get(id)));
+            tours.add(tour);
+            linkedCountries.addAll(ids);
+        }
+        if (tours.isEmpty()) {
+            return;
+        }
+        tourRepository.saveAll(tours);
+        List<Long> ids = tours.stream().map(Tour::getId).toList();
+        cacheConfig.invalidateTourCollections();
+        cacheConfig.forgetMissing(EntityType.TOUR, ids);
+        cacheConfig.invalidateToursByTransport(tours.stream()
+                .map(TourService::transportName)
+                .distinct()
+                .toArray(String[]::new));
+        tourSearchIndex.changed(EntityType.TOUR, ids);
+        textSearchIndex.update(EntityType.TOUR, tours.stream()
+                .map(tour -> new TextRow(tour.getId(), tour.getName(), tour.getDescription()))
+                .toList());
+        for (Long countryId : linkedCountries) {
+            cacheConfig.invalidateCountry(countryId);
+            changeFeed.publish(EntityType.COUNTRY, countryId);
+        }
+        changeFeed.publishInserts(EntityType.TOUR, ids);
     }
 
+    // Sets the countries of each given tour. Only the difference to the current links is written,
+    // as batched statements on the join table; tours and countries whose links changed get a new
+    // version and are evicted, everything else stays cached.
     @Transactional
-    public TourDto updateTour(Long id, TourDto tourDto) {
-        Tour tour = tourRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException(TOUR_NOT_FOUND));
-        tour.setName(tourDto.getName());
-        tour.setDescription(tourDto.getDescription());
-        tour.setDurationDays(tourDto.getDurationDays());
-        Tour updatedTour = tourRepository.save(tour);
-        TourDto updatedDto = TourMapper.toDto(updatedTour);
+    public void replaceCountries(Map<Long, Set<Long>> countriesByTour) {
+        Set<Long> countryIds = new HashSet<>();
+        countriesByTour.values().stream()
+                .filter(Objects::nonNull)
+                .forEach(countryIds::addAll);
+        if (countryIds.contains(null)) {
+            throw new ValidationException("Country IDs must not be null");
+        }
+        requireExisting("Tours", countriesByTour.keySet(), tourRepository::findExistingIds);
+        requireExisting("Countries", countryIds, countryRepository::findExistingIds);
 
-        cacheConfig.putTour(id, updatedDto);
+        Map<Long, Set<Long>> current = tourCountryLinks.findCountryIds(countriesByTour.keySet());
+        List<TourCountryLinks.Link> added = new ArrayList<>();
+        List<TourCountryLinks.Link> removed = new ArrayList<>();
+        countriesByTour.forEach((tourId, ids) -> {
+            Set<Long> wanted = ids == null ? Set.of() : ids;
+            Set<Long> existing = current.getOrDefault(tourId, Set.of());
+            wanted.stream()
+                    .filter(id -> !existing.contains(id))
+                    .forEach(id -> added.add(new TourCountryLinks.Link(tourId, id)));
+            existing.stream()
+                    .filter(id -> !wanted.contains(id))
+                    .forEach(id -> removed.add(new TourCountryLinks.Link(tourId, id)));
+        });
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        tourCountryLinks.delete(removed, bulkProperties.getBatchSize());
+        tourCountryLinks.insert(added, bulkProperties.getBatchSize());
 
-        for (Country country : tour.getCountries()) {
-            CountryDto countryDto = CountryMapper.toDto(country);
-            cacheConfig.putCountry(country.getId(), countryDto);
+        Set<Long> changedTours = new HashSet<>();
+        Set<Long> changedCountries = new HashSet<>();
+        Stream.concat(added.stream(), removed.stream()).forEach(link -> {
+            changedTours.add(link.tourId());
+            changedCountries.add(link.countryId());
+        });
+        tourRepository.incrementVersions(changedTours);
+        countryRepository.incrementVersions(changedCountries);
+        tourSearchIndex.changed(EntityType.TOUR, changedTours);
+        tourSearchIndex.changed(EntityType.COUNTRY, changedCountries);
+        for (Long tourId : changedTours) {
+            cacheConfig.invalidateTour(tourId);
+            changeFeed.publish(EntityType.TOUR, tourId);
         }
+        for (Long countryId : changedCountries) {
+            cacheConfig.invalidateCountry(countryId);
+            changeFeed.publish(EntityType.COUNTRY, countryId);
+        }
+    }
+
+    private static void requireExisting(String entities, Set<Long> ids,
+                                        Function<Set<Long>, List<Long>> findExisting) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(ids);
+        findExisting.apply(ids).forEach(missing::remove);
+        if (!missing.isEmpty()) {
+            throw new ValidationException(entities + " not found: " + missing);
+        }
+    }
 
-        if (tour.getTransport() != null) {
-            TransportDto transportDto = TransportMapper.toDto(tour.getTransport());
-            cacheConfig.putTransport(tour.getTransport().getId(), transportDto);
+    // The linked countries lose the tour, so their versions are bumped as a collection change
+    // through the entities would; no entity is loaded. The transport name is read first, its
+    // cached tour IDs still list this tour.
+    @Transactional
+    public void deleteById(Long id) {
+        if (!tourRepository.existsById(id)) {
+            throw new RuntimeException(TOUR_NOT_FOUND);
+        }
+        String transportName = tourRepository.findTransportNameById(id);
+        List<Long> countryIds = countryRepository.findIdsByTourId(id);
+        if (!countryIds.isEmpty()) {
+            countryRepository.incrementVersions(countryIds);
         }
+        tourCountryLinks.deleteByTour(id);
+        tourRepository.bulkDeleteById(id);
+        cacheConfig.invalidateTour(id);
+        cacheConfig.invalidateToursByTransport(transportName);
+        textSearchIndex.remove(EntityType.TOUR, id);
+        tourSearchIndex.changed(EntityType.TOUR, id);
+        changeFeed.publish(EntityType.TOUR, id);
+    }
 
-        return updatedDto;
+    @Transactional
+    public TourDto updateTour(Long id, TourDto tourDto) {
+        Tour tour = tourRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException(TOUR_NOT_FOUND));
+        TourMapper.copyFields(tourDto, tour);
+        Tour updatedTour = tourRepository.saveAndFlush(tour);
+        cacheConfig.invalidateTour(id);
+        textSearchIndex.update(EntityType.TOUR, id, updatedTour.getName(),
+                updatedTour.getDescription());
+        tourSearchIndex.changed(EntityType.TOUR, id);
+        changeFeed.publish(EntityType.TOUR, id);
+        return TourMapper.toDto(updatedTour);
     }
 
     @Transactional
     public TourDto addOrUpdateTransportInTour(Long tourId, TransportDto transportDto) {
         Tour tour = tourRepository.findById(tourId)
                 .orElseThrow(() -> new RuntimeException(TOUR_NOT_FOUND));
+        String previousTransport = transportName(tour);
         Transport transport = TransportMapper.toEntity(transportDto);
         tour.setTransport(transport);
-        tourRepository.save(tour);
-
-        cacheConfig.putTransport(transport.getId(), transportDto);
-
-        List<Country> countries = new ArrayList<>(tour.getCountries());
-        for (Country country : countries) {
-            CountryDto countryDto = CountryMapper.toDto(country);
-            cacheConfig.putCountry(country.getId(), countryDto);
-        }
-
-        TourDto tourDto = TourMapper.toDto(tour);
-        cacheConfig.putTour(tourId, tourDto);
-        return tourDto;
+        tourRepository.saveAndFlush(tour);
+        cacheConfig.invalidateTour(tourId);
+        cacheConfig.invalidateToursByTransport(previousTransport, transportDto.getName());
+        tourSearchIndex.changed(EntityType.TOUR, tourId);
+        changeFeed.publish(EntityType.TOUR, tourId);
+        return TourMapper.toDto(tour);
     }
 
     @Transactional
     public TourDto removeTransportFromTour(Long tourId) {
         Tour tour = tourRepository.findById(tourId)
                 .orElseThrow(() -> new RuntimeException(TOUR_NOT_FOUND));
+        String previousTransport = transportName(tour);
         tour.setTransport(null);
-        Tour updatedTour = tourRepository.save(tour);
-        TourDto updatedDto = TourMapper.toDto(updatedTour);
+        Tour updatedTour = tourRepository.saveAndFlush(tour);
+        cacheConfig.invalidateTour(tourId);
+        cacheConfig.invalidateToursByTransport(previousTransport);
+        tourSearchIndex.changed(EntityType.TOUR, tourId);
+        changeFeed.publish(EntityType.TOUR, tourId);
+        return TourMapper.toDto(updatedTour);
+    }
 
-        cacheConfig.putTour(tourId, updatedDto);
-        return updatedDto;
+    private static String transportName(Tour tour) {
+        return tour.getTransport() == null ? null : tour.getTransport().getName();
     }
 
-    @Transactional
     public List<TourDto> findToursByTransportType(String name) {
-        return tourRepository.findToursByTransportTypeJpql(name).stream()
-                .map(TourMapper::toDto)
-                .toList();
+        return findByIds(findIdsByTransport(name, tourRepository::findIdsByTransportName));
     }
 
-    @Transactional
     public List<TourDto> findToursByTransportTypeNative(String name) {
-        return tourRepository.findToursByTransportTypeNative(name).stream()
-                .map(TourMapper::toDto)
-                .toList();
+        return findByIds(findIdsByTransport(name, tourRepository::findIdsByTransportNameNative));
+    }
+
+    // Both queries only filter by the indexed name and share the cached IDs; the tours
+    // themselves come from the entity cache.
+    private List<Long> findIdsByTransport(String name, Function<String, List<Long>> query) {
+        List<Long> cachedIds = cacheConfig.getTourIdsByTransport(name);
+        if (cachedIds != null) {
+            return cachedIds;
+        }
+        long version = cacheConfig.getTourIdsByTransportVersion();
+        List<Long> ids = query.apply(name);
+        cacheConfig.putTourIdsByTransport(version, name, ids);
+        return ids;
     }
 }
 
@@ -1,25 +1,20 @@
 package org.example.adventuretime.service;
 
 import jakarta.transaction.Transactional;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.config.CacheChangeFeed;
 import org.example.adventuretime.config.CacheConfig;
-import org.example.adventuretime.dto.CountryDto;
-import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.ImportReportDto;
 import org.example.adventuretime.dto.TransportDto;
-import org.example.adventuretime.mapper.CountryMapper;
-import org.example.adventuretime.mapper.TourMapper;
 import org.example.adventuretime.mapper.TransportMapper;
-import org.example.adventuretime.model.Country;
-import org.example.adventuretime.model.Tour;
 import org.example.adventuretime.model.Transport;
 import org.example.adventuretime.repository.TourRepository;
 import org.example.adventuretime.repository.TransportRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -31,89 +26,144 @@ public class TransportService {
     private final TransportRepository transportRepository;
     private final TourRepository tourRepository;
     private final CacheConfig cacheConfig;
+    private final CacheChangeFeed changeFeed;
+    private final BulkImporter bulkImporter;
+    private final TourSearchIndex tourSearchIndex;
 
     public List<TransportDto> findAll() {
-        Collection<TransportDto> cachedTransports = cacheConfig.getAllTransports();
-        if (!cachedTransports.isEmpty()) {
-            return new ArrayList<>(cachedTransports);
+        List<TransportDto> cachedTransports = cacheConfig.getAllTransports();
+        if (cachedTransports != null) {
+            return cachedTransports;
         }
-        List<TransportDto> transports = transportRepository.findAll().stream()
-                .map(TransportMapper::toDto)
-                .toList();
-        transports.forEach(transport -> cacheConfig.putTransport(transport.getId(), transport));
+        long version = cacheConfig.getAllTransportsVersion();
+        List<TransportDto> transports = transportRepository.findAllDtos();
+        cacheConfig.putAllTransports(version, transports);
         return transports;
     }
 
+    public List<TransportDto> findPage(int page, int size) {
+        return findByIds(transportRepository.findIds(PageRequest.of(page, size)));
+    }
+
+    public List<TransportDto> findAfter(long after, int size) {
+        return findByIds(transportRepository.findIdsAfter(after, PageRequest.of(0, size)));
+    }
+
+    public long count() {
+        return transportRepository.count();
+    }
+
+    private List<TransportDto> findByIds(List<Long> ids) {
+        return PageLoader.load(ids, cacheConfig::getTransport,
+                transportRepository::findDtosByIdIn,
+                TransportDto::getId);
+    }
+
     public Optional<TransportDto> findById(Long id) {
         TransportDto cachedTransport = cacheConfig.getTransport(id);
         if (cachedTransport != null) {
             return Optional.of(cachedTransport);
         }
-        Optional<TransportDto> transportDto = transportRepository.findById(id)
-                .map(TransportMapper::toDto);
-        transportDto.ifPresent(transport -> cacheConfig.putTransport(id, transport));
-        return transportDto;
+        return Optional.ofNullable(cacheConfig.loadTransport(id, this::loadTransport));
+    }
+
+    private TransportDto loadTransport(Long id) {
+        return transportRepository.findDtoById(id).orElse(null);
     }
 
+    @Transactional
     public TransportDto save(TransportDto transportDto) {
-        Transport transport = TransportMapper.toEntity(transportDto);
-        Transport saved = transportRepository.save(transport);
+        Transport stored = transportDto.getId() == null ? null
+                : transportRepository.findById(transportDto.getId()).orElse(null);
+        String previousName = stored == null ? null : stored.getName();
+        Transport saved = transportRepository.saveAndFlush(toEntity(transportDto, stored));
         TransportDto savedDto = TransportMapper.toDto(saved);
-        cacheConfig.putTransport(savedDto.getId(), savedDto);
+        if (stored == null) {
+            cacheConfig.putTransport(savedDto.getId(), savedDto);
+        } else {
+            // An update, handled as in updateTransport: the tours embedding the old copy are
+            // evicted with it, and a known ID may rename the transport.
+            cacheConfig.invalidateTransport(saved.getId());
+            cacheConfig.invalidateToursByTransport(previousName, saved.getName());
+        }
+        cacheConfig.invalidateTransportCollections();
+        tourSearchIndex.changed(EntityType.TRANSPORT, saved.getId());
+        changeFeed.publish(EntityType.TRANSPORT, saved.getId());
         return savedDto;
     }
 
-    @Transactional
-    public TransportDto updateTransport(Long id, TransportDto transportDto) {
-        Transport transport = transportRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException(TRANSPORT_NOT_FOUND));
-        transport.setName(transportDto.getName());
-        transport.setCapacity(transportDto.getCapacity());
-        transport.setCost(transportDto.getCost());
-        Transport updatedTransport = transportRepository.save(transport);
-        TransportDto updatedDto = TransportMapper.toDto(updatedTransport);
-
-        cacheConfig.putTransport(id, updatedDto);
-
-        List<Tour> tours = tourRepository.findByTransport(updatedTransport);
-        for (Tour tour : tours) {
-            TourDto tourDto = TourMapper.toDto(tour);
-            cacheConfig.putTour(tour.getId(), tourDto);
+    // A known ID updates the stored transport in place, so its current version is kept and the
+    // write passes the optimistic lock check; an unknown ID is inserted under a generated one.
+    private static Transport toEntity(TransportDto transportDto, Transport stored) {
+        if (stored == null) {
+            Transport transport = TransportMapper.toEntity(transportDto);
+            transport.setId(null);
+            return transport;
         }
+        TransportMapper.copyFields(transportDto, stored);
+        return stored;
+    }
+
+    public ImportReportDto importTransports(InputStream in, ImportFormat format) {
+        return bulkImporter.run(in, format, TransportDto.class, TransportService::importError,
+                this::importChunk);
+    }
 
-        Set<Country> countriesToUpdate = new HashSet<>();
-        for (Tour tour : tours) {
-            countriesToUpdate.addAll(tour.getCountries());
+    private static String importError(TransportDto transport) {
+        if (transport.getName() == null || transport.getName().isEmpty()) {
+            return "Transport name is required";
+        }
+        if (transport.getCapacity() == null || transport.getCapacity() <= 0) {
+            return "Capacity must be a positive integer";
         }
-        for (Country country : countriesToUpdate) {
-            CountryDto countryDto = CountryMapper.toDto(country);
-            cacheConfig.putCountry(country.getId(), countryDto);
+        if (transport.getCost() == null || transport.getCost() < 0) {
+            return "Cost must be a non-negative number";
         }
+        return null;
+    }
 
-        return updatedDto;
+    private void importChunk(BulkImporter.Chunk<TransportDto> chunk) {
+        List<Transport> transports = chunk.rows().stream()
+                .map(row -> {
+                    Transport transport = TransportMapper.toEntity(row.value());
+                    transport.setId(null);
+                    return transport;
+                })
+                .toList();
+        transportRepository.saveAll(transports);
+        List<Long> ids = transports.stream().map(Transport::getId).toList();
+        cacheConfig.invalidateTransportCollections();
+        cacheConfig.forgetMissing(EntityType.TRANSPORT, ids);
+        tourSearchIndex.changed(EntityType.TRANSPORT, ids);
+        changeFeed.publishInserts(EntityType.TRANSPORT, ids);
     }
 
     @Transactional
-    public void deleteById(Long id) {
+    public TransportDto updateTransport(Long id, TransportDto transportDto) {
         Transport transport = transportRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(TRANSPORT_NOT_FOUND));
-        List<Tour> tours = tourRepository.findByTransport(transport);
-
-        Set<Country> countriesToUpdate = new HashSet<>();
-        for (Tour tour : tours) {
-            tour.setTransport(null);
-            tourRepository.save(tour);
-            TourDto tourDto = TourMapper.toDto(tour);
-            cacheConfig.putTour(tour.getId(), tourDto);
-            countriesToUpdate.addAll(tour.getCountries());
-        }
+        String previousName = transport.getName();
+        TransportMapper.copyFields(transportDto, transport);
+        Transport updatedTransport = transportRepository.saveAndFlush(transport);
+        cacheConfig.invalidateTransport(id);
+        cacheConfig.invalidateToursByTransport(previousName, updatedTransport.getName());
+        tourSearchIndex.changed(EntityType.TRANSPORT, id);
+        changeFeed.publish(EntityType.TRANSPORT, id);
+        return TransportMapper.toDto(updatedTransport);
+    }
 
-        for (Country country : countriesToUpdate) {
-            CountryDto countryDto = CountryMapper.toDto(country);
-            cacheConfig.putCountry(country.getId(), countryDto);
+    // Two statements however many tours use the transport; the tours cached with it are evicted
+    // through the dependency index.
+    @Transactional
+    public void deleteById(Long id) {
+        if (!transportRepository.existsById(id)) {
+            throw new RuntimeException(TRANSPORT_NOT_FOUND);
         }
-
-        transportRepository.delete(transport);
-        cacheConfig.removeTransport(id);
+        tourRepository.clearTransport(id);
+        transportRepository.bulkDeleteById(id);
+        cacheConfig.invalidateTransport(id);
+        cacheConfig.invalidateToursByTransport();
+        tourSearchIndex.changed(EntityType.TRANSPORT, id);
+        changeFeed.publish(EntityType.TRANSPORT, id);
     }
 }
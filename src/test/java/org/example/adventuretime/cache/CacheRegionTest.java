@@ -0,0 +1,177 @@
+package org.example.adventuretime.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.example.adventuretime.config.CacheProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheRegionTest {
+
+    private final AtomicInteger serializations = new AtomicInteger();
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final AtomicInteger staleServed = new AtomicInteger();
+
+    private CacheRegion<String> region(boolean gzip) {
+        return region(gzip, noTtl());
+    }
+
+    private CacheRegion<String> region(boolean gzip, Freshness freshness) {
+        JsonCache<String> json = new JsonCache<>(new TinyLfuCache<>(100), value -> {
+            serializations.incrementAndGet();
+            return ("\"" + value + "\"").getBytes(StandardCharsets.UTF_8);
+        }, gzip);
+        return new CacheRegion<>(EntityType.TOUR, new TinyLfuCache<>(100),
+                (id, value) -> value.length(), 100,
+                new NegativeCache<>(Duration.ofSeconds(30), 100), json, value -> Set.of(), new DependencyIndex(), new AtomicLong(), freshness,
+                refreshes::add, staleServed::incrementAndGet);
+    }
+
+    // Freshness as CacheConfig builds it for a region configured without a TTL.
+    private static Freshness noTtl() {
+        CacheProperties properties = new CacheProperties();
+        properties.getTour().setTtl(Duration.ZERO);
+        CacheProperties.Refresh refresh = properties.getRefresh();
+        return new Freshness(properties.getTour().getTtl(), refresh.getAhead(),
+                refresh.getMaxStale(), System::nanoTime);
+    }
+
+    private CacheRegion<String> expiringRegion() {
+        return region(false, new Freshness(Duration.ofMinutes(10), 0.8, Duration.ofHours(1),
+                clock::get));
+    }
+
+    @Test
+    void testLoadJsonSerializesOncePerEntry() {
+        CacheRegion<String> region = region(false);
+
+        JsonBytes first = region.loadJson(1L, id -> "Grand Tour");
+        JsonBytes second = region.loadJson(1L, id -> fail("loader must not run"));
+
+        assertSame(first, second);
+        assertEquals("\"Grand Tour\"", new String(second.getContent(), StandardCharsets.UTF_8));
+        assertEquals(1, serializations.get());
+    }
+
+    @Test
+    void testPutAndEvictDropSerializedForm() {
+        CacheRegion<String> region = region(false);
+        region.loadJson(1L, id -> "Grand Tour");
+
+        region.put(1L, "Alpine Tour");
+        JsonBytes updated = region.loadJson(1L, id -> fail("loader must not run"));
+        assertEquals("\"Alpine Tour\"", new String(updated.getContent(), StandardCharsets.UTF_8));
+
+        region.evict(1L);
+        assertNull(region.loadJson(1L, id -> null));
+        assertEquals(2, serializations.get());
+    }
+
+    @Test
+    void testCollectionOverBudgetNotKept() {
+        CacheRegion<String> region = region(false);
+        region.putAll(region.getAllVersion(), List.of("Grand Tour"));
+        assertEquals(List.of("Grand Tour"), region.getAll());
+        assertTrue(region.collectionWeight() > 10);
+
+        region.invalidateAll();
+        region.putAll(region.getAllVersion(), List.of("a".repeat(60), "b".repeat(60)));
+
+        assertNull(region.getAll());
+        assertEquals(0, region.collectionWeight());
+    }
+
+    @Test
+    void testRestoredEntriesWeighedUntilLoadedOrDropped() {
+        CacheRegion<String> region = region(false);
+        region.restore(1L, "Grand Tour", () -> true);
+        region.restore(2L, "Alpine", () -> true);
+        assertEquals(16, region.restoredWeight());
+
+        assertEquals("Grand Tour", region.load(1L, id -> fail("loader must not run")));
+        assertEquals(6, region.restoredWeight());
+
+        assertEquals(1, region.dropRestored());
+        assertEquals(0, region.restoredWeight());
+        assertEquals(0, region.restoredCount());
+    }
+
+    @Test
+    void testEntryEvictedOnInsertLeavesNoDependencies() {
+        DependencyIndex dependencies = new DependencyIndex();
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(5, (id, value) -> value.length(),
+                (id, value) -> dependencies.unregister(new CacheKey(EntityType.TOUR, id)));
+        CacheRegion<String> region = new CacheRegion<>(EntityType.TOUR, cache,
+                (id, value) -> value.length(), 100, new NegativeCache<>(Duration.ofSeconds(30), 100),
+                new JsonCache<>(null, value -> new byte[0], false),
+                value -> Set.of(new CacheKey(EntityType.TRANSPORT, 3L)), dependencies,
+                new AtomicLong(), noTtl(), refreshes::add, staleServed::incrementAndGet);
+
+        region.put(1L, "Grand Tour");
+
+        assertNull(region.get(1L));
+        assertEquals(0, dependencies.size());
+        assertTrue(dependencies.removeDependents(new CacheKey(EntityType.TRANSPORT, 3L)).isEmpty());
+    }
+
+    @Test
+    void testGzippedJsonRoundTrips() {
+        CacheRegion<String> region = region(true);
+
+        JsonBytes json = region.loadJson(1L, id -> "Grand Tour");
+
+        assertTrue(json.isGzipped());
+        assertEquals("\"Grand Tour\"", new String(json.plain(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEntryNearExpiryServedWhileRefreshedInBackground() {
+        CacheRegion<String> region = expiringRegion();
+        region.load(1L, id -> "Grand Tour");
+        clock.set(Duration.ofMinutes(9).toNanos());
+
+        assertNull(region.get(1L));
+        assertEquals("Grand Tour", region.load(1L, id -> "Alpine Tour"));
+        assertEquals("Grand Tour", region.load(1L, id -> "Alpine Tour"));
+        assertEquals(1, refreshes.size());
+
+        refreshes.get(0).run();
+        assertEquals("Alpine Tour", region.get(1L));
+        assertEquals(1, region.refreshCount());
+    }
+
+    @Test
+    void testExpiredEntryServedStaleWhenReloadFails() {
+        CacheRegion<String> region = expiringRegion();
+        region.load(1L, id -> "Grand Tour");
+        clock.set(Duration.ofMinutes(11).toNanos());
+
+        String stale = region.load(1L, id -> {
+            throw new IllegalStateException("database down");
+        });
+
+        assertEquals("Grand Tour", stale);
+        assertEquals(1, staleServed.get());
+        assertEquals("Alpine Tour", region.load(1L, id -> "Alpine Tour"));
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void testEntryPastMaxStaleNotServed() {
+        CacheRegion<String> region = expiringRegion();
+        region.load(1L, id -> "Grand Tour");
+        clock.set(Duration.ofMinutes(71).toNanos());
+
+        assertThrows(IllegalStateException.class, () -> region.load(1L, id -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals(0, staleServed.get());
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.adventuretime.cache;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyIndexTest {
+
+    @Test
+    void testRemoveDependentsReturnsEveryEmbeddingEntry() {
+        DependencyIndex index = new DependencyIndex();
+        index.register(CacheKey.tour(1L), Set.of(CacheKey.transport(7L), CacheKey.country(3L)));
+        index.register(CacheKey.country(3L), Set.of(CacheKey.tour(1L), CacheKey.transport(7L)));
+
+        Set<CacheKey> dependents = index.removeDependents(CacheKey.transport(7L));
+
+        assertEquals(Set.of(CacheKey.tour(1L), CacheKey.country(3L)), dependents);
+        assertTrue(index.removeDependents(CacheKey.transport(7L)).isEmpty());
+    }
+
+    @Test
+    void testReRegisterAndUnregisterDropStaleReferences() {
+        DependencyIndex index = new DependencyIndex();
+        index.register(CacheKey.tour(1L), Set.of(CacheKey.transport(7L)));
+        index.register(CacheKey.tour(2L), Set.of(CacheKey.country(3L)));
+
+        index.register(CacheKey.tour(1L), Set.of(CacheKey.transport(8L)));
+        index.unregister(CacheKey.tour(2L));
+
+        assertTrue(index.removeDependents(CacheKey.transport(7L)).isEmpty());
+        assertTrue(index.removeDependents(CacheKey.country(3L)).isEmpty());
+        assertEquals(Set.of(CacheKey.tour(1L)), index.removeDependents(CacheKey.transport(8L)));
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.adventuretime.cache;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedSnapshotTest {
+
+    @Test
+    void testPublishIsDroppedAfterInvalidation() {
+        KeyedSnapshot<String, List<Long>> snapshot = new KeyedSnapshot<>(10);
+        long version = snapshot.version();
+
+        snapshot.invalidate("plane");
+
+        assertFalse(snapshot.publish(version, "bus", List.of(1L)));
+        assertNull(snapshot.get("bus"));
+        assertTrue(snapshot.publish(snapshot.version(), "bus", List.of(1L)));
+        assertEquals(List.of(1L), snapshot.get("bus"));
+    }
+
+    @Test
+    void testInvalidateDropsKeysAndCapacityIsBounded() {
+        KeyedSnapshot<String, List<Long>> snapshot = new KeyedSnapshot<>(2);
+        snapshot.publish(0, "bus", List.of(1L));
+        snapshot.publish(0, "train", List.of());
+
+        assertFalse(snapshot.publish(0, "plane", List.of(2L)));
+        snapshot.invalidate("bus");
+        assertNull(snapshot.get("bus"));
+        assertEquals(List.of(), snapshot.get("train"));
+        snapshot.invalidateAll();
+        assertEquals(0, snapshot.size());
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.adventuretime.cache;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameIndexTest {
+
+    private static NameIndex index() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "Spain");
+        index.put(2L, "Sweden");
+        index.put(3L, "Réunion");
+        index.put(4L, "Switzerland");
+        return index;
+    }
+
+    @Test
+    void testStartingWithIgnoresCaseAndAccentsInNameOrder() {
+        NameIndex index = index();
+
+        assertEquals(List.of(2L, 4L), index.startingWith("sw", -1));
+        assertEquals(List.of(1L), index.startingWith("S", 1));
+        assertEquals(List.of(3L), index.startingWith("reu", -1));
+    }
+
+    @Test
+    void testContainingUsesTrigramsAndShortNeedles() {
+        NameIndex index = index();
+
+        assertEquals(Set.of(4L), index.containing("ERLA"));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), index.containing("n"));
+        assertEquals(Set.of(1L), index.containing("AI"));
+        assertEquals(Set.of(2L), index.containing("en"));
+        assertTrue(index.containing("xyz").isEmpty());
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDropsName() {
+        NameIndex index = index();
+
+        index.put(2L, "Slovenia");
+        index.remove(1L);
+
+        assertEquals(List.of(2L), index.startingWith("s", -1).subList(0, 1));
+        assertTrue(index.containing("wed").isEmpty());
+        assertTrue(index.containing("pai").isEmpty());
+        assertNull(index.name(1L));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testWeightFollowsPutsAndRemoves() {
+        NameIndex index = index();
+        long weight = index.weightedSize();
+        assertTrue(weight > 0);
+
+        index.put(2L, "Sweden");
+        assertEquals(weight, index.weightedSize());
+
+        for (long id = 1; id <= 4; id++) {
+            index.remove(id);
+        }
+        assertEquals(0, index.weightedSize());
+    }
+}
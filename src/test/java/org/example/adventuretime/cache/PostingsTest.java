@@ -0,0 +1,49 @@
+package org.example.adventuretime.cache;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingsTest {
+
+    private static BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        for (int id : ids) {
+            bits.set(id);
+        }
+        return bits;
+    }
+
+    @Test
+    void testRangeUnionsValuesBetweenBounds() {
+        Postings<Integer> durations = new Postings<>();
+        durations.put(1L, 3);
+        durations.put(2L, 7);
+        durations.put(3L, 10);
+        durations.put(2L, 14);
+
+        assertEquals(bits(1, 3), durations.range(3, 10));
+        assertEquals(bits(2, 3), durations.range(8, null));
+        assertEquals(bits(1), durations.range(null, 5));
+        assertTrue(durations.range(10, 3).isEmpty());
+    }
+
+    @Test
+    void testMultipleValuesAndRemoveValue() {
+        Postings<Long> tourCountries = new Postings<>();
+        tourCountries.put(1L, Set.of(10L, 11L));
+        tourCountries.put(2L, Set.of(11L));
+
+        assertEquals(bits(1, 2), tourCountries.anyOf(List.of(10L, 11L)));
+        tourCountries.removeValue(11L);
+        assertEquals(bits(1), tourCountries.anyOf(List.of(10L, 11L)));
+        assertEquals(1, tourCountries.size());
+
+        tourCountries.remove(1L);
+        assertTrue(tourCountries.get(10L).isEmpty());
+        assertEquals(0, tourCountries.size());
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.adventuretime.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentLoadsAreCoalesced() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> flight.load(1L, key -> {
+                loaderCalls.incrementAndGet();
+                await(release);
+                return "Grand Tour";
+            })));
+        }
+        while (flight.loadCount() + flight.coalescedCount() < 8) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("Grand Tour", result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loaderCalls.get());
+        assertEquals(7, flight.coalescedCount());
+    }
+
+    @Test
+    void testFailureIsSharedAndNotCached() {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flight.load(1L, key -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+        assertEquals("Europe Tour", flight.load(1L, key -> "Europe Tour"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
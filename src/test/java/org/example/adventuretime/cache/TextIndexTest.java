@@ -0,0 +1,59 @@
+package org.example.adventuretime.cache;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextIndexTest {
+
+    @Test
+    void testTokenizeFoldsCaseAccentsAndCyrillic() {
+        assertEquals(List.of("море", "и", "горы", "cote", "d", "azur", "2024"),
+                TextIndex.tokenize("Море и ГОРЫ, Côte d'Azur-2024"));
+        assertEquals(List.of("елка"), TextIndex.tokenize("Ёлка"));
+    }
+
+    @Test
+    void testSearchRanksRareAndRepeatedTermsHigher() {
+        TextIndex<Long> index = new TextIndex<>();
+        index.put(1L, "Пляжи и море, море и солнце");
+        index.put(2L, "Горы и озера");
+        index.put(3L, "Море, горы и старый город");
+
+        List<TextIndex.Hit<Long>> hits = index.search("море", 10);
+
+        assertEquals(List.of(1L, 3L), hits.stream().map(TextIndex.Hit::key).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertEquals(3L, index.search("горы город", 1).get(0).key());
+        assertTrue(index.search("пустыня", 10).isEmpty());
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDropsDocument() {
+        TextIndex<Long> index = new TextIndex<>();
+        index.put(1L, "museums");
+        index.put(1L, "beaches");
+        index.put(2L, "museums");
+
+        assertEquals(List.of(2L), index.search("museums", 10).stream()
+                .map(TextIndex.Hit::key).toList());
+        index.remove(2L);
+        assertTrue(index.search("museums", 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testWeightFollowsPutsAndRemoves() {
+        TextIndex<Long> index = new TextIndex<>();
+        index.put(1L, "Горы и озера");
+        long weight = index.weightedSize();
+        index.put(2L, "Море и горы");
+        assertTrue(index.weightedSize() > weight);
+
+        index.put(2L, "Море и горы");
+        index.remove(1L);
+        index.remove(2L);
+        assertEquals(0, index.weightedSize());
+    }
+}
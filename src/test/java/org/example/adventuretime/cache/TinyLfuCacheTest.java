@@ -0,0 +1,145 @@
+package org.example.adventuretime.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void testPutAndGet() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10);
+        cache.put(1L, "Italy");
+
+        assertEquals("Italy", cache.get(1L));
+        assertNull(cache.get(2L));
+    }
+
+    @Test
+    void testPutReplacesValue() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10);
+        cache.put(1L, "Italy");
+        cache.put(1L, "Spain");
+
+        assertEquals("Spain", cache.get(1L));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testRemove() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10);
+        cache.put(1L, "Italy");
+        cache.remove(1L);
+
+        assertNull(cache.get(1L));
+        assertTrue(cache.getAll().isEmpty());
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(100);
+        for (long i = 0; i < 1000; i++) {
+            cache.put(i, "value-" + i);
+        }
+
+        assertTrue(cache.size() <= 100);
+        assertEquals(cache.size(), cache.getAll().size());
+    }
+
+    @Test
+    void testWeightIsBounded() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(1000, (key, value) -> value.length());
+        for (long i = 0; i < 500; i++) {
+            cache.put(i, "x".repeat((int) (i % 50) + 1));
+        }
+
+        assertTrue(cache.weightedSize() <= 1000);
+        long weight = cache.getAll().stream().mapToLong(String::length).sum();
+        assertEquals(weight, cache.weightedSize());
+    }
+
+    @Test
+    void testUpdateChangesWeight() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(1000, (key, value) -> value.length());
+        cache.put(1L, "abc");
+        cache.put(1L, "abcdefgh");
+
+        assertEquals(8, cache.weightedSize());
+    }
+
+    @Test
+    void testStatsCountHitsMissesAndEvictions() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(10);
+        cache.put(1L, "Italy");
+        cache.get(1L);
+        cache.get(1L);
+        cache.get(2L);
+        for (long i = 2; i <= 20; i++) {
+            cache.put(i, "Country " + i);
+        }
+
+        assertEquals(2, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(20 - cache.size(), cache.stats().evictionCount());
+    }
+
+    @Test
+    void testFrequentEntriesSurviveScan() {
+        TinyLfuCache<Long, String> cache = new TinyLfuCache<>(100);
+        for (long i = 0; i < 50; i++) {
+            cache.put(i, "hot-" + i);
+        }
+        for (int round = 0; round < 20; round++) {
+            for (long i = 0; i < 50; i++) {
+                cache.get(i);
+            }
+        }
+        for (long i = 1000; i < 11000; i++) {
+            cache.put(i, "cold-" + i);
+        }
+
+        int hotHits = 0;
+        for (long i = 0; i < 50; i++) {
+            if (cache.get(i) != null) {
+                hotHits++;
+            }
+        }
+        assertTrue(hotHits >= 45, "hot entries evicted by a one-off scan: " + hotHits);
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        TinyLfuCache<Long, Long> cache = new TinyLfuCache<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                for (long i = 0; i < 20000; i++) {
+                    long key = (i * 31 + seed) % 256;
+                    Long value = cache.get(key);
+                    if (value == null) {
+                        cache.put(key, key);
+                    } else {
+                        assertEquals(key, value.longValue());
+                    }
+                    if (i % 97 == 0) {
+                        cache.remove(key);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(cache.size() <= 64);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.adventuretime.config;
+
+import org.example.adventuretime.cache.CacheChangeListener;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.model.CacheChange;
+import org.example.adventuretime.repository.CacheChangeLog;
+import org.example.adventuretime.repository.CacheChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CacheChangeFeedTest {
+
+    @Mock
+    private CacheConfig cacheConfig;
+
+    @Mock
+    private CacheChangeRepository changeRepository;
+
+    @Mock
+    private CacheChangeLog changeLog;
+
+    @Mock
+    private CacheChangeListener searchIndex;
+
+    @Mock
+    private CacheChangeListener nameIndex;
+
+    private final CacheProperties properties = new CacheProperties();
+
+    private CacheChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feed = new CacheChangeFeed(cacheConfig, changeRepository, changeLog, new BulkProperties(),
+                properties, List.of(searchIndex, nameIndex));
+        when(changeRepository.findLastId()).thenReturn(10L);
+        feed.poll();
+    }
+
+    private static CacheChange change(long id, EntityType type, Long entityId, String node) {
+        CacheChange change = new CacheChange(type, entityId, node);
+        change.setId(id);
+        return change;
+    }
+
+    @Test
+    void testPoll_EvictsChangesFromOtherInstances() {
+        CacheChange own = change(11L, EntityType.TOUR, 1L, null);
+        feed.publish(EntityType.TOUR, 1L);
+        ArgumentCaptor<CacheChange> published = ArgumentCaptor.forClass(CacheChange.class);
+        verify(changeRepository).save(published.capture());
+        own.setNode(published.getValue().getNode());
+        when(changeRepository.findAfter(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                own, change(12L, EntityType.COUNTRY, 2L, "other")));
+
+        feed.poll();
+
+        verify(cacheConfig, never()).invalidateTour(anyLong());
+        verify(cacheConfig).invalidateCountry(2L);
+        verify(searchIndex).changed(EntityType.COUNTRY, 2L);
+        verify(nameIndex).changed(EntityType.COUNTRY, 2L);
+        verify(searchIndex, never()).changed(EntityType.TOUR, 1L);
+        feed.poll();
+        verify(changeRepository).findAfter(eq(12L), any(Pageable.class));
+    }
+
+    @Test
+    void testPoll_WaitsForGapBeforeAdvancing() {
+        properties.getChangeLog().setGapTimeout(Duration.ofHours(1));
+        when(changeRepository.findAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(change(12L, EntityType.TRANSPORT, 3L, "other")))
+                .thenReturn(List.of(change(11L, EntityType.TOUR, 1L, "other"),
+                        change(12L, EntityType.TRANSPORT, 3L, "other")));
+
+        feed.poll();
+        feed.poll();
+
+        verify(cacheConfig, times(1)).invalidateTransport(3L);
+        verify(cacheConfig).invalidateTour(1L);
+        when(changeRepository.findAfter(eq(12L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        feed.poll();
+        verify(changeRepository).findAfter(eq(12L), any(Pageable.class));
+    }
+
+    @Test
+    void testPoll_RereadsSkippedIdsThatCommitLate() {
+        properties.getChangeLog().setGapTimeout(Duration.ZERO);
+        when(changeRepository.findAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(change(12L, EntityType.TRANSPORT, 3L, "other")));
+        feed.poll();
+        feed.poll();
+        verify(changeRepository, never()).findBetween(anyLong(), anyLong());
+
+        when(changeRepository.findBetween(11L, 11L))
+                .thenReturn(List.of(change(11L, EntityType.TOUR, 1L, "other")));
+        feed.poll();
+        feed.poll();
+
+        verify(cacheConfig, times(1)).invalidateTour(1L);
+        verify(searchIndex).changed(EntityType.TOUR, 1L);
+        verify(changeRepository, times(1)).findBetween(11L, 11L);
+        verify(changeRepository, times(2)).findAfter(eq(12L), any(Pageable.class));
+    }
+
+    @Test
+    void testPoll_ForgetsSkippedIdsAfterRetention() {
+        properties.getChangeLog().setGapTimeout(Duration.ZERO);
+        properties.getChangeLog().setRetention(Duration.ZERO);
+        when(changeRepository.findAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(change(12L, EntityType.TRANSPORT, 3L, "other")));
+
+        feed.poll();
+        feed.poll();
+        feed.poll();
+
+        verify(changeRepository, never()).findBetween(anyLong(), anyLong());
+    }
+
+    @Test
+    void testPublishInserts_OneRowPerIdInOneBatch() {
+        feed.publishInserts(EntityType.TRANSPORT, List.of(4L, 5L));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CacheChange>> rows = ArgumentCaptor.forClass(List.class);
+        verify(changeLog).insert(rows.capture(), eq(500));
+        assertEquals(List.of(4L, 5L), rows.getValue().stream().map(CacheChange::getEntityId)
+                .toList());
+        verify(changeRepository, never()).save(any());
+    }
+
+    @Test
+    void testPublish_Disabled() {
+        properties.getChangeLog().setEnabled(false);
+
+        feed.publish(EntityType.TOUR, 1L);
+        feed.publishInserts(EntityType.TOUR, List.of(2L));
+        feed.poll();
+
+        verify(changeRepository, never()).save(any());
+        verify(changeLog, never()).insert(any(), anyInt());
+        verify(changeRepository, never()).findAfter(anyLong(), any());
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.adventuretime.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.TransportDto;
+import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TourRepository;
+import org.example.adventuretime.repository.TransportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheSnapshotStoreTest {
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private CountryRepository countryRepository;
+
+    @Mock
+    private TransportRepository transportRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private final CacheProperties properties = new CacheProperties();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties.getSnapshot().setPath(directory.resolve("entities.snapshot").toString());
+    }
+
+    private CacheConfig cacheConfig() {
+        return new CacheConfig(properties, objectMapper, Runnable::run, transactionManager);
+    }
+
+    private CacheSnapshotStore store(CacheConfig cacheConfig) {
+        return new CacheSnapshotStore(cacheConfig, properties, objectMapper, tourRepository,
+                countryRepository, transportRepository);
+    }
+
+    private static TourDto tour() {
+        CountryDto country = new CountryDto();
+        country.setId(2L);
+        country.setName("Italy");
+        country.setVersion(4L);
+        TransportDto transport = new TransportDto();
+        transport.setId(3L);
+        transport.setName("Bus");
+        transport.setVersion(1L);
+        TourDto tour = new TourDto();
+        tour.setId(1L);
+        tour.setName("Grand Tour");
+        tour.setVersion(7L);
+        tour.setCountries(Set.of(country));
+        tour.setTransport(transport);
+        return tour;
+    }
+
+    @Test
+    void testRestoredEntryServedWhenVersionsMatch() {
+        CacheConfig before = cacheConfig();
+        before.putTour(1L, tour());
+        store(before).write();
+
+        CacheConfig after = cacheConfig();
+        store(after).run(null);
+        when(tourRepository.findVersionStamps(1L)).thenReturn(List.<Object[]>of(
+                new Object[] {7L, 2L, 4L, 3L, 1L}));
+
+        TourDto restored = after.loadTour(1L, id -> fail("loader must not run"));
+
+        assertEquals("Grand Tour", restored.getName());
+        assertEquals("Bus", restored.getTransport().getName());
+        assertSame(restored, after.getTour(1L));
+    }
+
+    @Test
+    void testRestoredEntryReloadedWhenEmbeddedEntityChanged() {
+        CacheConfig before = cacheConfig();
+        before.putTour(1L, tour());
+        store(before).write();
+
+        CacheConfig after = cacheConfig();
+        store(after).run(null);
+        when(tourRepository.findVersionStamps(1L)).thenReturn(List.<Object[]>of(
+                new Object[] {7L, 2L, 5L, 3L, 1L}));
+        TourDto fresh = tour();
+        fresh.setName("Fresh Tour");
+
+        TourDto loaded = after.loadTour(1L, id -> fresh);
+
+        assertEquals("Fresh Tour", loaded.getName());
+    }
+
+    @Test
+    void testRestoredTransportDroppedWhenDeleted() {
+        TransportDto transport = new TransportDto();
+        transport.setId(3L);
+        transport.setVersion(1L);
+        CacheConfig before = cacheConfig();
+        before.putTransport(3L, transport);
+        store(before).write();
+
+        CacheConfig after = cacheConfig();
+        store(after).run(null);
+        when(transportRepository.findVersion(3L)).thenReturn(Optional.empty());
+
+        assertNull(after.loadTransport(3L, id -> null));
+        verify(tourRepository, never()).findVersionStamps(anyLong());
+        verifyNoInteractions(countryRepository);
+    }
+
+    @Test
+    void testUnclaimedRestoredEntriesDropped() {
+        CacheConfig before = cacheConfig();
+        before.putTour(1L, tour());
+        store(before).write();
+
+        CacheConfig after = cacheConfig();
+        CacheSnapshotStore store = store(after);
+        store.run(null);
+        assertEquals(1, after.getRegions().get(0).restoredCount());
+
+        store.dropUnclaimedRestored();
+        TourDto fresh = tour();
+        fresh.setName("Fresh Tour");
+
+        assertEquals(0, after.getRegions().get(0).restoredCount());
+        assertEquals("Fresh Tour", after.loadTour(1L, id -> fresh).getName());
+        verify(tourRepository, never()).findVersionStamps(anyLong());
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.adventuretime.config;
+
+import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.model.Country;
+import org.example.adventuretime.model.Tour;
+import org.example.adventuretime.model.Transport;
+import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TourRepository;
+import org.example.adventuretime.repository.TransportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CacheWarmupTest {
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private CountryRepository countryRepository;
+
+    @Mock
+    private TransportRepository transportRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheConfig cacheConfig;
+
+    private final CacheProperties properties = new CacheProperties();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties.getWarmup().setBatchSize(2);
+    }
+
+    private CacheWarmup warmup() {
+        return new CacheWarmup(cacheConfig, properties, tourRepository, countryRepository,
+                transportRepository, transactionManager);
+    }
+
+    @Test
+    void testRun_LoadsEntitiesInBatches() {
+        Transport transport = new Transport();
+        transport.setId(7L);
+        Tour first = new Tour();
+        first.setId(1L);
+        first.setTransport(transport);
+        Tour second = new Tour();
+        second.setId(2L);
+        Tour third = new Tour();
+        third.setId(3L);
+        Country country = new Country();
+        country.setId(5L);
+        country.getTours().add(first);
+
+        when(tourRepository.findIds(any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L));
+        when(tourRepository.findWithCountriesAndTransportByIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(first, second));
+        when(tourRepository.findWithCountriesAndTransportByIdIn(List.of(3L)))
+                .thenReturn(List.of(third));
+        when(countryRepository.findIds(any(Pageable.class))).thenReturn(List.of(5L));
+        when(countryRepository.findWithToursByIdIn(anyCollection())).thenReturn(List.of(country));
+        when(transportRepository.findIds(any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        warmup().run(null);
+
+        verify(tourRepository, times(2)).findWithCountriesAndTransportByIdIn(anyCollection());
+        verify(cacheConfig).putTour(eq(1L), any(TourDto.class));
+        verify(cacheConfig).putTour(eq(2L), any(TourDto.class));
+        verify(cacheConfig).putTour(eq(3L), any(TourDto.class));
+        verify(cacheConfig).putCountry(eq(5L), any(CountryDto.class));
+        verify(transportRepository, never()).findAllById(any());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void testRun_Disabled() {
+        properties.getWarmup().setEnabled(false);
+
+        warmup().run(null);
+
+        verifyNoInteractions(tourRepository, countryRepository, transportRepository, cacheConfig);
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.adventuretime.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.adventuretime.config.BulkProperties;
+import org.example.adventuretime.dto.ImportReportDto;
+import org.example.adventuretime.dto.TourImportDto;
+import org.example.adventuretime.dto.TransportDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BulkImporterTest {
+
+    private final BulkProperties properties = new BulkProperties();
+
+    private BulkImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        properties.setBatchSize(2);
+        importer = new BulkImporter(new ObjectMapper(), mock(PlatformTransactionManager.class),
+                properties);
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String nameError(TransportDto transport) {
+        return transport.getName() == null ? "Transport name is required" : null;
+    }
+
+    @Test
+    void testRun_NdjsonReportsBadRowsAndWritesInChunks() {
+        List<List<String>> chunks = new ArrayList<>();
+        String ndjson = """
+                {"name":"Bus","capacity":40,"cost":10.0}
+                {"name":"Train",
+                {"capacity":5}
+
+                {"name":"Ferry","capacity":300,"cost":55.5}
+                {"name":"Plane","capacity":180,"cost":120.0}
+                """;
+
+        ImportReportDto report = importer.run(body(ndjson), ImportFormat.NDJSON,
+                TransportDto.class, BulkImporterTest::nameError,
+                chunk -> chunks.add(chunk.rows().stream().map(row -> row.value().getName())
+                        .toList()));
+
+        assertEquals(List.of(List.of("Bus", "Ferry"), List.of("Plane")), chunks);
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertEquals(3, report.getErrors().get(1).getLine());
+        assertEquals("Transport name is required", report.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void testRun_CsvMapsHeaderColumnsAndListCells() {
+        List<TourImportDto> imported = new ArrayList<>();
+        String csv = """
+                countryIds,name,durationDays,description,transportId
+                1;2,Alps,7,Hiking,3
+                ,Coast,many,Beaches,
+                3,Desert,5,Dunes,
+                """;
+
+        ImportReportDto report = importer.run(body(csv), ImportFormat.CSV, TourImportDto.class,
+                tour -> null, chunk -> chunk.rows().forEach(row -> imported.add(row.value())));
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals(new TourImportDto("Alps", "Hiking", 7, 3L, List.of(1L, 2L)), imported.get(0));
+        assertEquals("Desert", imported.get(1).getName());
+        assertNull(imported.get(1).getTransportId());
+    }
+
+    @Test
+    void testRun_FailedChunkIsRetriedRowByRow() {
+        List<String> written = new ArrayList<>();
+        String ndjson = """
+                {"name":"Bus","capacity":40,"cost":10.0}
+                {"name":"Broken","capacity":1,"cost":1.0}
+                {"name":"Ferry","capacity":300,"cost":55.5}
+                """;
+
+        ImportReportDto report = importer.run(body(ndjson), ImportFormat.NDJSON,
+                TransportDto.class, BulkImporterTest::nameError, chunk -> {
+                    List<String> names = chunk.rows().stream()
+                            .map(row -> row.value().getName())
+                            .toList();
+                    if (names.contains("Broken")) {
+                        throw new IllegalStateException("constraint violated");
+                    }
+                    written.addAll(names);
+                });
+
+        assertEquals(List.of("Bus", "Ferry"), written);
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertEquals("Not saved: constraint violated", report.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void testRun_RejectedRowsAreNotCounted() {
+        String ndjson = """
+                {"name":"Alps","description":"Hiking","durationDays":7,"countryIds":[9]}
+                {"name":"Coast","description":"Beaches","durationDays":3}
+                """;
+
+        ImportReportDto report = importer.run(body(ndjson), ImportFormat.NDJSON,
+                TourImportDto.class, tour -> null,
+                chunk -> chunk.reject(chunk.rows().get(0), "Country 9 not found"));
+
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals("Country 9 not found", report.getErrors().get(0).getMessage());
+    }
+}
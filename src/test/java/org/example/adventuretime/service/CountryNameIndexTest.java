@@ -0,0 +1,70 @@
+package org.example.adventuretime.service;
+
+import org.example.adventuretime.dto.CountryNameDto;
+import org.example.adventuretime.repository.CountryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CountryNameIndexTest {
+
+    @Mock
+    private CountryRepository countryRepository;
+
+    private CountryNameIndex nameIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        nameIndex = new CountryNameIndex(countryRepository);
+        when(countryRepository.findAllNames()).thenReturn(List.of(
+                new CountryNameDto(1L, "Spain"), new CountryNameDto(2L, "Sweden"),
+                new CountryNameDto(3L, "Réunion"), new CountryNameDto(4L, "100% Land"),
+                new CountryNameDto(5L, "Tunisia")));
+    }
+
+    @Test
+    void testFindIdsLike_NullUntilLoaded() {
+        assertNull(nameIndex.findIdsLike("S%"));
+        assertNull(nameIndex.autocomplete("S", 5));
+    }
+
+    @Test
+    void testFindIdsLike_MatchesLikeSyntax() {
+        nameIndex.run(null);
+
+        assertEquals(List.of(1L, 2L), nameIndex.findIdsLike("s%"));
+        assertEquals(List.of(3L, 5L), nameIndex.findIdsLike("%UNI%"));
+        assertEquals(List.of(1L), nameIndex.findIdsLike("Sp_in"));
+        assertEquals(List.of(1L, 2L, 3L), nameIndex.findIdsLike("%n"));
+        assertEquals(List.of(4L), nameIndex.findIdsLike("%0\\%%"));
+        assertEquals(List.of(), nameIndex.findIdsLike("Sp"));
+    }
+
+    @Test
+    void testAutocomplete_PrefixMatchesFirst() {
+        nameIndex.run(null);
+
+        List<CountryNameDto> suggestions = nameIndex.autocomplete("s", 10);
+
+        assertEquals(List.of("Spain", "Sweden", "Tunisia"),
+                suggestions.stream().map(CountryNameDto::getName).toList());
+        assertEquals(1, nameIndex.autocomplete("s", 1).size());
+    }
+
+    @Test
+    void testUpdatesDuringLoadAreReplayed() {
+        when(countryRepository.findNameById(2L)).thenReturn(Optional.empty());
+        nameIndex.update(2L, null);
+
+        nameIndex.run(null);
+
+        assertEquals(List.of(1L), nameIndex.findIdsLike("S%"));
+    }
+}
@@ -1,24 +1,38 @@
 package org.example.adventuretime.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.config.BulkProperties;
+import org.example.adventuretime.config.CacheChangeFeed;
 import org.example.adventuretime.config.CacheConfig;
+import org.example.adventuretime.config.CacheProperties;
 import org.example.adventuretime.dto.CountryDto;
-import org.example.adventuretime.mapper.TourMapper;
+import org.example.adventuretime.dto.TourDto;
 import org.example.adventuretime.model.Country;
 import org.example.adventuretime.model.Tour;
 import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.CountryRow;
+import org.example.adventuretime.repository.TourCountryLinks;
 import org.example.adventuretime.repository.TourRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
  class CountryServiceTest {
@@ -32,6 +46,27 @@ import static org.mockito.Mockito.*;
    @Mock
    private CacheConfig cacheConfig;
 
+   @Mock
+   private CacheChangeFeed changeFeed;
+
+   @Mock
+   private EntityManager entityManager;
+
+   @Mock
+   private TourCountryLinks tourCountryLinks;
+
+   @Mock
+   private CountryNameIndex countryNameIndex;
+
+   @Mock
+   private TextSearchIndex textSearchIndex;
+
+   @Mock
+   private TourSearchIndex tourSearchIndex;
+
+   @Spy
+   private BulkProperties bulkProperties = new BulkProperties();
+
    @InjectMocks
    private CountryService countryService;
 
@@ -40,6 +75,13 @@ import static org.mockito.Mockito.*;
       MockitoAnnotations.openMocks(this);
    }
 
+   private static CountryRow row(Long id, String name, Long tourId) {
+      boolean tour = tourId != null;
+      return new CountryRow(id, name, true, null, 20.0, null, 0L, tourId,
+              tour ? "Grand Tour" : null, null, tour ? 7 : null, tour ? 0L : null,
+              null, null, null, null, null);
+   }
+
    @Test
    void testFindAll_FromCache() {
       CountryDto cachedCountry = new CountryDto();
@@ -51,22 +93,39 @@ import static org.mockito.Mockito.*;
 
       assertEquals(1, result.size());
       assertEquals("Italy", result.get(0).getName());
-      verify(countryRepository, never()).findAll();
+      verify(countryRepository, never()).findAllRows();
    }
 
    @Test
    void testFindAll_FromRepository() {
-      Country country = new Country();
-      country.setId(1L);
-      country.setName("Spain");
-      when(cacheConfig.getAllCountries()).thenReturn(Collections.emptyList());
-      when(countryRepository.findAll()).thenReturn(Collections.singletonList(country));
+      when(cacheConfig.getAllCountries()).thenReturn(null);
+      when(cacheConfig.getAllCountriesVersion()).thenReturn(3L);
+      when(countryRepository.findAllRows()).thenReturn(List.of(row(1L, "Spain", 5L),
+              row(1L, "Spain", 6L)));
 
       List<CountryDto> result = countryService.findAll();
 
       assertEquals(1, result.size());
       assertEquals("Spain", result.get(0).getName());
-      verify(cacheConfig).putCountry(1L, result.get(0));
+      assertEquals(2, result.get(0).getTours().size());
+      verify(cacheConfig).putAllCountries(3L, result);
+      verify(cacheConfig, never()).putCountry(anyLong(), any());
+   }
+
+   @Test
+   void testFindByNameLike_FromIndex() {
+      CountryDto cachedCountry = new CountryDto();
+      cachedCountry.setId(2L);
+      cachedCountry.setName("Sweden");
+      when(countryNameIndex.findIdsLike("S%")).thenReturn(List.of(1L, 2L));
+      when(cacheConfig.getCountry(2L)).thenReturn(cachedCountry);
+      when(countryRepository.findRowsByIdIn(List.of(1L)))
+              .thenReturn(List.of(row(1L, "Spain", null)));
+
+      List<CountryDto> result = countryService.findByNameLike("S%");
+
+      assertEquals(List.of("Spain", "Sweden"), result.stream().map(CountryDto::getName).toList());
+      verify(countryRepository, never()).findRowsByNameLike(any());
    }
 
    @Test
@@ -80,28 +139,30 @@ import static org.mockito.Mockito.*;
 
       assertTrue(result.isPresent());
       assertEquals("Italy", result.get().getName());
-      verify(countryRepository, never()).findById(anyLong());
+      verify(countryRepository, never()).findRowsById(anyLong());
    }
 
    @Test
    void testFindById_FromRepository() {
-      Country country = new Country();
-      country.setId(1L);
-      country.setName("Spain");
       when(cacheConfig.getCountry(1L)).thenReturn(null);
-      when(countryRepository.findById(1L)).thenReturn(Optional.of(country));
+      when(cacheConfig.loadCountry(eq(1L), any())).thenAnswer(invocation ->
+              invocation.<Function<Long, CountryDto>>getArgument(1).apply(1L));
+      when(countryRepository.findRowsById(1L))
+              .thenReturn(Collections.singletonList(row(1L, "Spain", null)));
 
       Optional<CountryDto> result = countryService.findById(1L);
 
       assertTrue(result.isPresent());
       assertEquals("Spain", result.get().getName());
-      verify(cacheConfig).putCountry(1L, result.get());
+      verify(cacheConfig).loadCountry(eq(1L), any());
    }
 
    @Test
    void testFindById_NotFound() {
       when(cacheConfig.getCountry(1L)).thenReturn(null);
-      when(countryRepository.findById(1L)).thenReturn(Optional.empty());
+      when(cacheConfig.loadCountry(eq(1L), any())).thenAnswer(invocation ->
+              invocation.<Function<Long, CountryDto>>getArgument(1).apply(1L));
+      when(countryRepository.findRowsById(1L)).thenReturn(Collections.emptyList());
 
       Optional<CountryDto> result = countryService.findById(1L);
 
@@ -123,7 +184,7 @@ import static org.mockito.Mockito.*;
       savedCountry.setVisaCost(80.0);
       savedCountry.setNationalLanguages("French");
 
-      when(countryRepository.save(any(Country.class))).thenReturn(savedCountry);
+      when(countryRepository.saveAndFlush(any(Country.class))).thenReturn(savedCountry);
 
       CountryDto result = countryService.save(countryDto);
 
@@ -132,6 +193,93 @@ import static org.mockito.Mockito.*;
       verify(cacheConfig).putCountry(1L, result);
    }
 
+   @Test
+   void testSaveCountry_ExistingIdAfterUpdate_KeepsStoredVersion() {
+      Country storedCountry = new Country();
+      storedCountry.setId(1L);
+      storedCountry.setName("France");
+      storedCountry.setVersion(3);
+
+      CountryDto countryDto = new CountryDto();
+      countryDto.setId(1L);
+      countryDto.setName("French Republic");
+      countryDto.setVisaCost(90.0);
+
+      when(countryRepository.findById(1L)).thenReturn(Optional.of(storedCountry));
+      when(countryRepository.saveAndFlush(any(Country.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+      CountryDto result = countryService.save(countryDto);
+
+      verify(countryRepository).saveAndFlush(same(storedCountry));
+      assertEquals("French Republic", result.getName());
+      assertEquals(3L, result.getVersion());
+      verify(cacheConfig).invalidateCountry(1L);
+      verify(cacheConfig, never()).putCountry(anyLong(), any());
+   }
+
+   @Test
+   void testSaveCountry_ExistingId_EvictsToursEmbeddingIt() {
+      CacheConfig cache = new CacheConfig(new CacheProperties(), new ObjectMapper(), Runnable::run,
+            mock(PlatformTransactionManager.class));
+      CountryDto embedded = new CountryDto();
+      embedded.setId(1L);
+      TourDto tour = new TourDto();
+      tour.setId(5L);
+      tour.setCountries(Set.of(embedded));
+      cache.putTour(5L, tour);
+      assertNotNull(cache.getTour(5L));
+      CountryService service = new CountryService(countryRepository, tourRepository, cache,
+            changeFeed, entityManager, tourCountryLinks, bulkProperties, countryNameIndex,
+            textSearchIndex, tourSearchIndex);
+      Country storedCountry = new Country();
+      storedCountry.setId(1L);
+      CountryDto countryDto = new CountryDto();
+      countryDto.setId(1L);
+      countryDto.setName("France");
+
+      when(countryRepository.findById(1L)).thenReturn(Optional.of(storedCountry));
+      when(countryRepository.saveAndFlush(any(Country.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+      service.save(countryDto);
+
+      assertNull(cache.getTour(5L));
+   }
+
+   @Test
+   void testSaveAll_FlushesAndClearsPerBatch() {
+      bulkProperties.setBatchSize(2);
+      AtomicLong ids = new AtomicLong();
+      doAnswer(invocation -> {
+         invocation.<Country>getArgument(0).setId(ids.incrementAndGet());
+         return null;
+      }).when(entityManager).persist(any(Country.class));
+      List<CountryDto> countryDtos = List.of("France", "Spain", "Italy").stream()
+              .map(name -> {
+                 CountryDto countryDto = new CountryDto();
+                 countryDto.setId(99L);
+                 countryDto.setName(name);
+                 return countryDto;
+              })
+              .toList();
+
+      List<CountryDto> result = countryService.saveAll(countryDtos);
+
+      assertEquals(List.of(1L, 2L, 3L), result.stream().map(CountryDto::getId).toList());
+      assertEquals("Italy", result.get(2).getName());
+      verify(entityManager, times(3)).persist(any(Country.class));
+      verify(entityManager, times(2)).flush();
+      verify(entityManager, times(2)).clear();
+      verify(countryRepository, never()).saveAndFlush(any());
+      verify(cacheConfig).invalidateCountryCollections();
+      verify(cacheConfig, never()).putCountry(anyLong(), any());
+      verify(cacheConfig).forgetMissing(EntityType.COUNTRY, List.of(1L, 2L, 3L));
+      verify(changeFeed).publishInserts(EntityType.COUNTRY, List.of(1L, 2L, 3L));
+      verify(changeFeed, never()).publish(any(), any());
+      verify(countryNameIndex).update(anyMap());
+   }
+
    @Test
    void testUpdateCountry_Success() {
       Country existingCountry = new Country();
@@ -145,12 +293,35 @@ import static org.mockito.Mockito.*;
       countryDto.setNationalLanguages("New Language");
 
       when(countryRepository.findById(1L)).thenReturn(Optional.of(existingCountry));
-      when(countryRepository.save(any(Country.class))).thenAnswer(invocation -> invocation.getArgument(0));
+      when(countryRepository.saveAndFlush(any(Country.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
       CountryDto result = countryService.updateCountry(1L, countryDto);
 
       assertEquals("New Name", result.getName());
-      verify(cacheConfig).putCountry(1L, result);
+      verify(cacheConfig).invalidateCountry(1L);
+      verify(cacheConfig, never()).putCountry(anyLong(), any());
+   }
+
+   @Test
+   void testUpdateCountry_ReturnsFlushedVersion() {
+      Country existingCountry = new Country();
+      existingCountry.setId(1L);
+      existingCountry.setVersion(3);
+      CountryDto countryDto = new CountryDto();
+      countryDto.setName("New Name");
+
+      when(countryRepository.findById(1L)).thenReturn(Optional.of(existingCountry));
+      // The flush is where Hibernate bumps the version.
+      when(countryRepository.saveAndFlush(any(Country.class))).thenAnswer(invocation -> {
+         Country country = invocation.getArgument(0);
+         country.setVersion(country.getVersion() + 1);
+         return country;
+      });
+
+      CountryDto result = countryService.updateCountry(1L, countryDto);
+
+      assertEquals(4L, result.getVersion());
+      verify(changeFeed).publish(EntityType.COUNTRY, 1L);
    }
 
    @Test
@@ -165,21 +336,25 @@ import static org.mockito.Mockito.*;
 
    @Test
    void testDeleteCountry_Success() {
-      Country country = new Country();
-      country.setId(1L);
-      when(countryRepository.findById(1L)).thenReturn(Optional.of(country));
+      when(countryRepository.existsById(1L)).thenReturn(true);
+      when(tourRepository.findIdsByCountryId(1L)).thenReturn(List.of(4L, 5L));
 
       countryService.deleteCountry(1L);
 
-      verify(countryRepository).delete(country);
-      verify(cacheConfig).removeCountry(1L);
+      verify(tourRepository).incrementVersions(List.of(4L, 5L));
+      verify(tourCountryLinks).deleteByCountry(1L);
+      verify(countryRepository).bulkDeleteById(1L);
+      verify(countryRepository, never()).findById(any());
+      verify(cacheConfig).invalidateCountry(1L);
+      verify(changeFeed).publish(EntityType.COUNTRY, 1L);
    }
 
    @Test
    void testDeleteCountry_NotFound() {
-      when(countryRepository.findById(1L)).thenReturn(Optional.empty());
+      when(countryRepository.existsById(1L)).thenReturn(false);
 
       assertThrows(RuntimeException.class, () -> countryService.deleteCountry(1L));
+      verify(countryRepository, never()).bulkDeleteById(any());
    }
 
    @Test
@@ -192,13 +367,13 @@ import static org.mockito.Mockito.*;
       when(countryRepository.findById(1L)).thenReturn(Optional.of(country));
       when(tourRepository.findById(1L)).thenReturn(Optional.of(tour));
       when(countryRepository.save(any(Country.class))).thenReturn(country);
-      when(tourRepository.save(any(Tour.class))).thenReturn(tour);
+      when(tourRepository.saveAndFlush(any(Tour.class))).thenReturn(tour);
 
       CountryDto result = countryService.addTourToCountry(1L, 1L);
 
       assertNotNull(result);
-      verify(cacheConfig).putCountry(1L, result);
-      verify(cacheConfig).putTour(1L, TourMapper.toDto(tour));
+      verify(cacheConfig).invalidateCountry(1L);
+      verify(cacheConfig).invalidateTour(1L);
    }
 
    @Test
@@ -231,13 +406,13 @@ import static org.mockito.Mockito.*;
       when(countryRepository.findById(1L)).thenReturn(Optional.of(country));
       when(tourRepository.findById(1L)).thenReturn(Optional.of(tour));
       when(countryRepository.save(any(Country.class))).thenReturn(country);
-      when(tourRepository.save(any(Tour.class))).thenReturn(tour);
+      when(tourRepository.saveAndFlush(any(Tour.class))).thenReturn(tour);
 
       CountryDto result = countryService.removeTourFromCountry(1L, 1L);
 
       assertNotNull(result);
-      verify(cacheConfig).putCountry(1L, result);
-      verify(cacheConfig).putTour(1L, TourMapper.toDto(tour));
+      verify(cacheConfig).invalidateCountry(1L);
+      verify(cacheConfig).invalidateTour(1L);
    }
 
    @Test
@@ -0,0 +1,112 @@
+package org.example.adventuretime.service;
+
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.dto.TourSearchCriteria;
+import org.example.adventuretime.dto.TransportDto;
+import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TourRepository;
+import org.example.adventuretime.repository.TourRow;
+import org.example.adventuretime.repository.TransportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TourSearchIndexTest {
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private CountryRepository countryRepository;
+
+    @Mock
+    private TransportRepository transportRepository;
+
+    private TourSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        index = new TourSearchIndex(tourRepository, countryRepository, transportRepository,
+                mock(PlatformTransactionManager.class));
+        when(tourRepository.streamAllRows()).thenReturn(Stream.of(
+                row(1L, 5, 10L, true, 20.0, 100L, "Bus", 50.0),
+                row(1L, 5, 11L, false, 80.0, 100L, "Bus", 50.0),
+                row(2L, 9, 11L, false, 80.0, 101L, "Plane", 400.0),
+                row(3L, 12, null, null, null, null, null, null)));
+        index.run(null);
+    }
+
+    private static TourRow row(Long id, Integer days, Long countryId, Boolean available,
+                               Double visaCost, Long transportId, String transport, Double cost) {
+        return new TourRow(id, "Tour " + id, null, days, 0L, countryId, null, available, null,
+                visaCost, null, 0L, transportId, transport, null, cost, 0L);
+    }
+
+    private static TourSearchCriteria criteria() {
+        return new TourSearchCriteria();
+    }
+
+    @Test
+    void testSearch_IntersectsFilters() {
+        TourSearchCriteria byDays = criteria();
+        byDays.setMinDays(5);
+        byDays.setMaxDays(9);
+        assertEquals(List.of(1L, 2L), index.search(byDays, 0, 10));
+
+        TourSearchCriteria byCountry = criteria();
+        byCountry.setCountryAvailable(true);
+        byCountry.setMaxVisaCost(50.0);
+        assertEquals(List.of(1L), index.search(byCountry, 0, 10));
+
+        TourSearchCriteria byTransport = criteria();
+        byTransport.setTransport("plane");
+        byTransport.setCountryIds(List.of(11L));
+        assertEquals(List.of(2L), index.search(byTransport, 0, 10));
+
+        TourSearchCriteria byCost = criteria();
+        byCost.setMaxTransportCost(100.0);
+        byCost.setMinDays(6);
+        assertEquals(List.of(), index.search(byCost, 0, 10));
+    }
+
+    @Test
+    void testSearch_PagesAfterId() {
+        assertEquals(List.of(1L, 2L), index.search(criteria(), 0, 2));
+        assertEquals(List.of(3L), index.search(criteria(), 2, 2));
+    }
+
+    @Test
+    void testSearch_IdsBeyondIntRangeMatchNothing() {
+        assertEquals(List.of(), index.search(criteria(), Integer.MAX_VALUE, 10));
+        assertEquals(List.of(), index.search(criteria(), Long.MAX_VALUE - 1, 10));
+
+        TourSearchCriteria byCountry = criteria();
+        byCountry.setCountryIds(List.of(11L, Long.MAX_VALUE));
+        assertEquals(List.of(1L, 2L), index.search(byCountry, 0, 10));
+    }
+
+    @Test
+    void testChanged_ReloadsEntities() {
+        when(transportRepository.findDtosByIdIn(List.of(100L)))
+                .thenReturn(List.of(new TransportDto(100L, "Train", 30, 60.0, 1L)));
+        when(tourRepository.findRowsByIdIn(List.of(2L))).thenReturn(List.of());
+
+        index.changed(EntityType.TRANSPORT, 100L);
+        index.changed(EntityType.TOUR, 2L);
+
+        TourSearchCriteria byTransport = criteria();
+        byTransport.setTransport("Train");
+        assertEquals(List.of(1L), index.search(byTransport, 0, 10));
+        TourSearchCriteria byCountry = criteria();
+        byCountry.setCountryIds(List.of(11L));
+        assertEquals(List.of(1L), index.search(byCountry, 0, 10));
+    }
+}
@@ -1,26 +1,50 @@
 package org.example.adventuretime.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.config.BulkProperties;
+import org.example.adventuretime.config.CacheChangeFeed;
 import org.example.adventuretime.config.CacheConfig;
+import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.dto.ImportReportDto;
 import org.example.adventuretime.dto.TourDto;
+import org.example.adventuretime.dto.TourSearchCriteria;
 import org.example.adventuretime.dto.TransportDto;
-import org.example.adventuretime.mapper.CountryMapper;
+import org.example.adventuretime.exception.ValidationException;
 import org.example.adventuretime.model.Country;
 import org.example.adventuretime.model.Tour;
 import org.example.adventuretime.model.Transport;
 import org.example.adventuretime.repository.CountryRepository;
+import org.example.adventuretime.repository.TourCountryLinks;
 import org.example.adventuretime.repository.TourRepository;
+import org.example.adventuretime.repository.TourRow;
+import org.example.adventuretime.repository.TransportRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
  class TourServiceTest {
@@ -34,6 +58,31 @@ import static org.mockito.Mockito.*;
     @Mock
     private CacheConfig cacheConfig;
 
+    @Mock
+    private TransportRepository transportRepository;
+
+    @Mock
+    private CacheChangeFeed changeFeed;
+
+    @Mock
+    private TourCountryLinks tourCountryLinks;
+
+    @Mock
+    private TourSearchIndex tourSearchIndex;
+
+    @Mock
+    private TextSearchIndex textSearchIndex;
+
+    @Spy
+    private BulkProperties bulkProperties = new BulkProperties();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private BulkImporter bulkImporter = new BulkImporter(new ObjectMapper(),
+            mock(PlatformTransactionManager.class), new BulkProperties());
+
     @InjectMocks
     private TourService tourService;
 
@@ -42,6 +91,14 @@ import static org.mockito.Mockito.*;
         MockitoAnnotations.openMocks(this);
     }
 
+    private static TourRow row(Long id, String name, Long countryId, String transportName) {
+        boolean country = countryId != null;
+        boolean transport = transportName != null;
+        return new TourRow(id, name, "Description", 7, 0L, countryId, country ? "Italy" : null,
+                country ? true : null, null, null, null, country ? 0L : null,
+                transport ? 3L : null, transportName, null, null, transport ? 0L : null);
+    }
+
     // Тесты для метода findAll
     @Test
     void testFindAll_FromCache() {
@@ -54,25 +111,76 @@ import static org.mockito.Mockito.*;
 
         assertEquals(1, result.size());
         assertEquals("Grand Tour", result.get(0).getName());
-        verify(tourRepository, never()).findAll();
+        verify(tourRepository, never()).findAllRows();
     }
 
     @Test
     void testFindAll_FromRepository() {
-        Tour tour = new Tour();
-        tour.setId(1L);
-        tour.setName("Europe Tour");
-        when(cacheConfig.getAllTours()).thenReturn(Collections.emptyList());
-        when(tourRepository.findAll()).thenReturn(Collections.singletonList(tour));
+        when(cacheConfig.getAllTours()).thenReturn(null);
+        when(cacheConfig.getAllToursVersion()).thenReturn(3L);
+        when(tourRepository.findAllRows()).thenReturn(List.of(row(1L, "Europe Tour", 2L, "Bus"),
+                row(1L, "Europe Tour", 4L, "Bus"), row(5L, "Alpine Tour", null, null)));
 
         List<TourDto> result = tourService.findAll();
 
-        assertEquals(1, result.size());
+        assertEquals(2, result.size());
         assertEquals("Europe Tour", result.get(0).getName());
-        verify(cacheConfig).putTour(1L, result.get(0));
+        assertEquals(2, result.get(0).getCountries().size());
+        assertEquals("Bus", result.get(0).getTransport().getName());
+        assertTrue(result.get(1).getCountries().isEmpty());
+        assertNull(result.get(1).getTransport());
+        verify(cacheConfig).putAllTours(3L, result);
+        verify(cacheConfig, never()).putTour(anyLong(), any());
+    }
+
+    @Test
+    void testFindAfter_TakesCachedAndFetchesRestInOneQuery() {
+        TourDto cachedTour = new TourDto();
+        cachedTour.setId(5L);
+        cachedTour.setName("Grand Tour");
+        when(tourRepository.findIdsAfter(eq(3L), any(Pageable.class))).thenReturn(List.of(5L, 7L));
+        when(cacheConfig.getTour(5L)).thenReturn(cachedTour);
+        when(tourRepository.findRowsByIdIn(List.of(7L)))
+                .thenReturn(List.of(row(7L, "Europe Tour", null, null)));
+
+        List<TourDto> result = tourService.findAfter(3L, 2);
+
+        assertEquals(List.of(5L, 7L), result.stream().map(TourDto::getId).toList());
+        assertSame(cachedTour, result.get(0));
+        verify(tourRepository, never()).findAllRows();
+    }
+
+    @Test
+    void testFindPage_SkipsRowsDeletedMeanwhile() {
+        when(tourRepository.findIds(PageRequest.of(1, 2))).thenReturn(List.of(3L, 4L));
+        when(tourRepository.findRowsByIdIn(List.of(3L, 4L)))
+                .thenReturn(List.of(row(4L, "Europe Tour", null, null)));
+
+        List<TourDto> result = tourService.findPage(1, 2);
+
+        assertEquals(1, result.size());
+        assertEquals(4L, result.get(0).getId());
     }
 
     // Тесты для метода findById
+    @Test
+    void testSearch_FallsBackToDatabaseUntilIndexed() {
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setMaxDays(10);
+        criteria.setTransport("Bus");
+        when(tourSearchIndex.search(criteria, 0L, 20)).thenReturn(null);
+        when(tourRepository.searchIds(eq(0L), isNull(), eq(10), eq(true), eq(List.of(0L)),
+                isNull(), isNull(), eq("Bus"), isNull(), isNull(), eq(PageRequest.of(0, 20))))
+                .thenReturn(List.of(4L));
+        when(tourRepository.findRowsByIdIn(List.of(4L)))
+                .thenReturn(List.of(row(4L, "Europe Tour", null, "Bus")));
+
+        List<TourDto> result = tourService.search(criteria, 0L, 20);
+
+        assertEquals(1, result.size());
+        assertEquals(4L, result.get(0).getId());
+    }
+
     @Test
     void testFindById_FromCache() {
         TourDto cachedTour = new TourDto();
@@ -84,28 +192,30 @@ import static org.mockito.Mockito.*;
 
         assertTrue(result.isPresent());
         assertEquals("Grand Tour", result.get().getName());
-        verify(tourRepository, never()).findById(anyLong());
+        verify(tourRepository, never()).findRowsById(anyLong());
     }
 
     @Test
     void testFindById_FromRepository() {
-        Tour tour = new Tour();
-        tour.setId(1L);
-        tour.setName("Europe Tour");
         when(cacheConfig.getTour(1L)).thenReturn(null);
-        when(tourRepository.findById(1L)).thenReturn(Optional.of(tour));
+        when(cacheConfig.loadTour(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, TourDto>>getArgument(1).apply(1L));
+        when(tourRepository.findRowsById(1L))
+                .thenReturn(Collections.singletonList(row(1L, "Europe Tour", 2L, null)));
 
         Optional<TourDto> result = tourService.findById(1L);
 
         assertTrue(result.isPresent());
         assertEquals("Europe Tour", result.get().getName());
-        verify(cacheConfig).putTour(1L, result.get());
+        verify(cacheConfig).loadTour(eq(1L), any());
     }
 
     @Test
     void testFindById_NotFound() {
         when(cacheConfig.getTour(1L)).thenReturn(null);
-        when(tourRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cacheConfig.loadTour(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, TourDto>>getArgument(1).apply(1L));
+        when(tourRepository.findRowsById(1L)).thenReturn(Collections.emptyList());
 
         Optional<TourDto> result = tourService.findById(1L);
 
@@ -126,7 +236,7 @@ import static org.mockito.Mockito.*;
         savedTour.setDescription("A tour of Europe");
         savedTour.setDurationDays(10);
 
-        when(tourRepository.save(any(Tour.class))).thenReturn(savedTour);
+        when(tourRepository.saveAndFlush(any(Tour.class))).thenReturn(savedTour);
 
         TourDto result = tourService.save(tourDto);
 
@@ -135,6 +245,80 @@ import static org.mockito.Mockito.*;
         verify(cacheConfig).putTour(1L, result);
     }
 
+    @Test
+    void testSaveTour_ExistingIdAfterUpdate_KeepsStoredVersion() {
+        Tour storedTour = new Tour();
+        storedTour.setId(1L);
+        storedTour.setName("Grand Tour");
+        storedTour.setVersion(2);
+
+        TourDto tourDto = new TourDto();
+        tourDto.setId(1L);
+        tourDto.setName("Renamed Tour");
+        tourDto.setDurationDays(12);
+
+        when(tourRepository.findById(1L)).thenReturn(Optional.of(storedTour));
+        when(tourRepository.saveAndFlush(any(Tour.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TourDto result = tourService.save(tourDto);
+
+        verify(tourRepository).saveAndFlush(same(storedTour));
+        assertEquals("Renamed Tour", result.getName());
+        assertEquals(12, result.getDurationDays());
+        assertEquals(2L, result.getVersion());
+        verify(cacheConfig).invalidateTour(1L);
+        verify(cacheConfig, never()).putTour(anyLong(), any());
+    }
+
+    @Test
+    void testSaveTour_ExistingIdWithTransport_UsesStoredTransport() {
+        Tour storedTour = new Tour();
+        storedTour.setId(1L);
+        storedTour.setName("Grand Tour");
+
+        Transport storedBus = new Transport();
+        storedBus.setId(3L);
+        storedBus.setName("Bus");
+        storedBus.setCapacity(40);
+        storedBus.setVersion(5);
+
+        TransportDto clientBus = new TransportDto();
+        clientBus.setId(3L);
+        clientBus.setName("Limousine");
+        clientBus.setCapacity(4);
+
+        TourDto tourDto = new TourDto();
+        tourDto.setId(1L);
+        tourDto.setName("Grand Tour");
+        tourDto.setTransport(clientBus);
+
+        when(tourRepository.findById(1L)).thenReturn(Optional.of(storedTour));
+        when(transportRepository.findById(3L)).thenReturn(Optional.of(storedBus));
+        when(tourRepository.saveAndFlush(any(Tour.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TourDto result = tourService.save(tourDto);
+
+        assertSame(storedBus, storedTour.getTransport());
+        assertEquals("Bus", result.getTransport().getName());
+        assertEquals(40, result.getTransport().getCapacity());
+        assertEquals(5L, result.getTransport().getVersion());
+    }
+
+    @Test
+    void testSaveTour_UnknownTransport_Rejected() {
+        TransportDto transportDto = new TransportDto();
+        transportDto.setId(9L);
+
+        TourDto tourDto = new TourDto();
+        tourDto.setName("Grand Tour");
+        tourDto.setTransport(transportDto);
+
+        when(transportRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(ValidationException.class, () -> tourService.save(tourDto));
+        verify(tourRepository, never()).saveAndFlush(any());
+    }
+
     // Тесты для метода updateTour
     @Test
     void testUpdateTour_Success() {
@@ -148,14 +332,16 @@ import static org.mockito.Mockito.*;
         tourDto.setDurationDays(15);
 
         when(tourRepository.findById(1L)).thenReturn(Optional.of(existingTour));
-        when(tourRepository.save(any(Tour.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(tourRepository.saveAndFlush(any(Tour.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         TourDto result = tourService.updateTour(1L, tourDto);
 
         assertEquals("New Tour", result.getName());
         assertEquals("Updated description", result.getDescription());
         assertEquals(15, result.getDurationDays());
-        verify(cacheConfig).putTour(1L, result);
+        verify(cacheConfig).invalidateTour(1L);
+        verify(cacheConfig, never()).putTour(anyLong(), any());
+        verify(textSearchIndex).update(EntityType.TOUR, 1L, "New Tour", "Updated description");
     }
 
     @Test
@@ -171,28 +357,27 @@ import static org.mockito.Mockito.*;
     // Тесты для метода deleteById
     @Test
     void testDeleteById_Success() {
-        Tour tour = new Tour();
-        tour.setId(1L);
-        Country country = new Country();
-        country.setId(1L);
-        tour.getCountries().add(country);
-        country.getTours().add(tour);
-
-        when(tourRepository.findById(1L)).thenReturn(Optional.of(tour));
-        when(countryRepository.save(any(Country.class))).thenReturn(country);
+        when(tourRepository.existsById(1L)).thenReturn(true);
+        when(countryRepository.findIdsByTourId(1L)).thenReturn(List.of(2L));
+        when(tourRepository.findTransportNameById(1L)).thenReturn("Bus");
 
         tourService.deleteById(1L);
 
-        verify(tourRepository).delete(tour);
-        verify(cacheConfig).removeTour(1L);
-        verify(cacheConfig).putCountry(1L, CountryMapper.toDto(country));
+        verify(countryRepository).incrementVersions(List.of(2L));
+        verify(tourCountryLinks).deleteByTour(1L);
+        verify(tourRepository).bulkDeleteById(1L);
+        verify(countryRepository, never()).saveAndFlush(any());
+        verify(cacheConfig).invalidateTour(1L);
+        verify(cacheConfig).invalidateToursByTransport("Bus");
+        verify(changeFeed).publish(EntityType.TOUR, 1L);
     }
 
     @Test
     void testDeleteById_NotFound() {
-        when(tourRepository.findById(1L)).thenReturn(Optional.empty());
+        when(tourRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(RuntimeException.class, () -> tourService.deleteById(1L));
+        verify(tourRepository, never()).bulkDeleteById(any());
     }
 
     // Тесты для метода addOrUpdateTransportInTour
@@ -209,14 +394,13 @@ import static org.mockito.Mockito.*;
         tour.getCountries().add(country);
 
         when(tourRepository.findById(1L)).thenReturn(Optional.of(tour));
-        when(tourRepository.save(any(Tour.class))).thenReturn(tour);
+        when(tourRepository.saveAndFlush(any(Tour.class))).thenReturn(tour);
 
         TourDto result = tourService.addOrUpdateTransportInTour(1L, transportDto);
 
         assertNotNull(result);
-        verify(cacheConfig).putTransport(1L, transportDto);
-        verify(cacheConfig).putCountry(1L, CountryMapper.toDto(country));
-        verify(cacheConfig).putTour(1L, result);
+        assertEquals("Bus", result.getTransport().getName());
+        verify(cacheConfig).invalidateTour(1L);
     }
 
     @Test
@@ -239,13 +423,13 @@ import static org.mockito.Mockito.*;
         tour.setTransport(transport);
 
         when(tourRepository.findById(1L)).thenReturn(Optional.of(tour));
-        when(tourRepository.save(any(Tour.class))).thenReturn(tour);
+        when(tourRepository.saveAndFlush(any(Tour.class))).thenReturn(tour);
 
         TourDto result = tourService.removeTransportFromTour(1L);
 
         assertNotNull(result);
         assertNull(tour.getTransport());
-        verify(cacheConfig).putTour(1L, result);
+        verify(cacheConfig).invalidateTour(1L);
     }
 
     @Test
@@ -258,24 +442,37 @@ import static org.mockito.Mockito.*;
     // Тесты для метода findToursByTransportType (JPQL)
     @Test
     void testFindToursByTransportType_Success() {
-        Tour tour = new Tour();
-        tour.setId(1L);
-        tour.setName("Grand Tour");
-        Transport transport = new Transport();
-        transport.setName("Bus");
-        tour.setTransport(transport);
-
-        when(tourRepository.findToursByTransportTypeJpql("Bus")).thenReturn(Collections.singletonList(tour));
+        when(cacheConfig.getTourIdsByTransport("Bus")).thenReturn(null);
+        when(cacheConfig.getTourIdsByTransportVersion()).thenReturn(4L);
+        when(tourRepository.findIdsByTransportName("Bus")).thenReturn(List.of(1L));
+        when(tourRepository.findRowsByIdIn(List.of(1L)))
+                .thenReturn(Collections.singletonList(row(1L, "Grand Tour", null, "Bus")));
 
         List<TourDto> result = tourService.findToursByTransportType("Bus");
 
         assertEquals(1, result.size());
         assertEquals("Grand Tour", result.get(0).getName());
+        verify(cacheConfig).putTourIdsByTransport(4L, "Bus", List.of(1L));
+    }
+
+    @Test
+    void testFindToursByTransportType_FromCachedIds() {
+        TourDto cachedTour = new TourDto();
+        cachedTour.setId(1L);
+        cachedTour.setName("Grand Tour");
+        when(cacheConfig.getTourIdsByTransport("Bus")).thenReturn(List.of(1L));
+        when(cacheConfig.getTour(1L)).thenReturn(cachedTour);
+
+        List<TourDto> result = tourService.findToursByTransportTypeNative("Bus");
+
+        assertEquals(List.of(cachedTour), result);
+        verifyNoInteractions(tourRepository);
     }
 
     @Test
     void testFindToursByTransportType_NoToursFound() {
-        when(tourRepository.findToursByTransportTypeJpql("Bus")).thenReturn(Collections.emptyList());
+        when(cacheConfig.getTourIdsByTransport("Bus")).thenReturn(null);
+        when(tourRepository.findIdsByTransportName("Bus")).thenReturn(Collections.emptyList());
 
         List<TourDto> result = tourService.findToursByTransportType("Bus");
 
@@ -285,14 +482,10 @@ import static org.mockito.Mockito.*;
     // Тесты для метода findToursByTransportTypeNative (нативный запрос)
     @Test
     void testFindToursByTransportTypeNative_Success() {
-        Tour tour = new Tour();
-        tour.setId(1L);
-        tour.setName("Grand Tour");
-        Transport transport = new Transport();
-        transport.setName("Bus");
-        tour.setTransport(transport);
-
-        when(tourRepository.findToursByTransportTypeNative("Bus")).thenReturn(Collections.singletonList(tour));
+        when(cacheConfig.getTourIdsByTransport("Bus")).thenReturn(null);
+        when(tourRepository.findIdsByTransportNameNative("Bus")).thenReturn(List.of(1L));
+        when(tourRepository.findRowsByIdIn(List.of(1L)))
+                .thenReturn(Collections.singletonList(row(1L, "Grand Tour", null, "Bus")));
 
         List<TourDto> result = tourService.findToursByTransportTypeNative("Bus");
 
@@ -302,10 +495,107 @@ import static org.mockito.Mockito.*;
 
     @Test
     void testFindToursByTransportTypeNative_NoToursFound() {
-        when(tourRepository.findToursByTransportTypeNative("Bus")).thenReturn(Collections.emptyList());
+        when(cacheConfig.getTourIdsByTransport("Bus")).thenReturn(null);
+        when(tourRepository.findIdsByTransportNameNative("Bus")).thenReturn(Collections.emptyList());
 
         List<TourDto> result = tourService.findToursByTransportTypeNative("Bus");
 
         assertTrue(result.isEmpty());
+        verify(tourRepository, never()).findRowsByIdIn(any());
+    }
+
+    @Test
+    void testImportTours_LinksByIdAndRejectsMissing() {
+        Country italy = new Country();
+        italy.setId(1L);
+        Transport bus = new Transport();
+        bus.setId(3L);
+        when(countryRepository.findAllById(any())).thenReturn(List.of(italy));
+        when(transportRepository.findAllById(any())).thenReturn(List.of(bus));
+        when(tourRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Tour> tours = invocation.getArgument(0);
+            tours.forEach(tour -> tour.setId(10L));
+            return tours;
+        });
+        String ndjson = """
+                {"name":"Rome","description":"City","durationDays":4,"transportId":3,"countryIds":[1]}
+                {"name":"Nowhere","description":"Lost","durationDays":2,"countryIds":[1,9]}
+                {"name":"","description":"Empty","durationDays":2}
+                """;
+
+        ImportReportDto report = tourService.importTours(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.NDJSON);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Tour>> saved = ArgumentCaptor.forClass(List.class);
+        verify(tourRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        Tour tour = saved.getValue().get(0);
+        assertEquals("Rome", tour.getName());
+        assertSame(bus, tour.getTransport());
+        assertEquals(Set.of(italy), tour.getCountries());
+        assertEquals(1, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals("Country 9 not found", report.getErrors().get(0).getMessage());
+        assertEquals("Tour name is required", report.getErrors().get(1).getMessage());
+        verify(cacheConfig).invalidateTourCollections();
+        verify(cacheConfig).forgetMissing(EntityType.TOUR, List.of(10L));
+        verify(tourSearchIndex).changed(EntityType.TOUR, List.of(10L));
+        verify(cacheConfig).invalidateCountry(1L);
+        verify(changeFeed).publish(EntityType.COUNTRY, 1L);
+        verify(changeFeed).publishInserts(EntityType.TOUR, List.of(10L));
+    }
+
+    @Test
+    void testReplaceCountries_WritesOnlyTheDiff() {
+        when(tourRepository.findExistingIds(Set.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(countryRepository.findExistingIds(Set.of(6L, 7L))).thenReturn(List.of(6L, 7L));
+        when(tourCountryLinks.findCountryIds(Set.of(1L, 2L)))
+                .thenReturn(Map.of(1L, Set.of(5L, 6L), 2L, Set.of(7L)));
+
+        tourService.replaceCountries(Map.of(1L, Set.of(6L, 7L), 2L, Set.of(7L)));
+
+        verify(tourCountryLinks).delete(List.of(new TourCountryLinks.Link(1L, 5L)), 500);
+        verify(tourCountryLinks).insert(List.of(new TourCountryLinks.Link(1L, 7L)), 500);
+        verify(tourRepository).incrementVersions(Set.of(1L));
+        verify(countryRepository).incrementVersions(Set.of(5L, 7L));
+        verify(cacheConfig).invalidateTour(1L);
+        verify(cacheConfig, never()).invalidateTour(2L);
+        verify(cacheConfig).invalidateCountry(5L);
+        verify(cacheConfig, never()).invalidateCountry(6L);
+        verify(changeFeed).publish(EntityType.COUNTRY, 7L);
+    }
+
+    @Test
+    void testReplaceCountries_UnknownCountry() {
+        when(tourRepository.findExistingIds(Set.of(1L))).thenReturn(List.of(1L));
+        when(countryRepository.findExistingIds(Set.of(5L, 9L))).thenReturn(List.of(5L));
+
+        ValidationException error = assertThrows(ValidationException.class,
+                () -> tourService.replaceCountries(Map.of(1L, Set.of(5L, 9L))));
+
+        assertEquals("Countries not found: [9]", error.getMessage());
+        verifyNoInteractions(tourCountryLinks);
+    }
+
+    @Test
+    void testExportTours_OneLinePerTour() throws Exception {
+        when(tourRepository.streamAllRows()).thenReturn(Stream.of(row(1L, "Rome", 2L, "Bus"),
+                row(1L, "Rome", 3L, "Bus"), row(4L, "Oslo", null, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        tourService.exportTours(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        TourDto rome = objectMapper.readValue(lines[0], TourDto.class);
+        assertEquals(1L, rome.getId());
+        assertEquals(Set.of(2L, 3L), rome.getCountries().stream()
+                .map(CountryDto::getId)
+                .collect(Collectors.toSet()));
+        assertEquals("Bus", rome.getTransport().getName());
+        assertEquals("Oslo", objectMapper.readValue(lines[1], TourDto.class).getName());
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("}\n"));
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,14 @@
 package org.example.adventuretime.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.adventuretime.cache.EntityType;
+import org.example.adventuretime.config.CacheChangeFeed;
+import org.example.adventuretime.config.BulkProperties;
 import org.example.adventuretime.config.CacheConfig;
-import org.example.adventuretime.dto.CountryDto;
+import org.example.adventuretime.config.CacheProperties;
+import org.example.adventuretime.dto.ImportReportDto;
 import org.example.adventuretime.dto.TourDto;
 import org.example.adventuretime.dto.TransportDto;
-import org.example.adventuretime.mapper.CountryMapper;
-import org.example.adventuretime.mapper.TourMapper;
-import org.example.adventuretime.model.Country;
-import org.example.adventuretime.model.Tour;
 import org.example.adventuretime.model.Transport;
 import org.example.adventuretime.repository.TourRepository;
 import org.example.adventuretime.repository.TransportRepository;
@@ -16,12 +17,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
  class TransportServiceTest {
@@ -35,6 +42,16 @@ import static org.mockito.Mockito.*;
     @Mock
     private CacheConfig cacheConfig;
 
+    @Mock
+    private CacheChangeFeed changeFeed;
+
+    @Mock
+    private TourSearchIndex tourSearchIndex;
+
+    @Spy
+    private BulkImporter bulkImporter = new BulkImporter(new ObjectMapper(),
+            mock(PlatformTransactionManager.class), new BulkProperties());
+
     @InjectMocks
     private TransportService transportService;
 
@@ -55,22 +72,22 @@ import static org.mockito.Mockito.*;
 
         assertEquals(1, result.size());
         assertEquals("Bus", result.get(0).getName());
-        verify(transportRepository, never()).findAll();
+        verify(transportRepository, never()).findAllDtos();
     }
 
     @Test
     void testFindAll_FromRepository() {
-        Transport transport = new Transport();
-        transport.setId(1L);
-        transport.setName("Train");
-        when(cacheConfig.getAllTransports()).thenReturn(Collections.emptyList());
-        when(transportRepository.findAll()).thenReturn(Collections.singletonList(transport));
+        when(cacheConfig.getAllTransports()).thenReturn(null);
+        when(cacheConfig.getAllTransportsVersion()).thenReturn(3L);
+        when(transportRepository.findAllDtos()).thenReturn(
+                Collections.singletonList(new TransportDto(1L, "Train", 300, 40.0, 0L)));
 
         List<TransportDto> result = transportService.findAll();
 
         assertEquals(1, result.size());
         assertEquals("Train", result.get(0).getName());
-        verify(cacheConfig).putTransport(1L, result.get(0));
+        verify(cacheConfig).putAllTransports(3L, result);
+        verify(cacheConfig, never()).putTransport(anyLong(), any());
     }
 
     // Тесты для метода findById
@@ -85,28 +102,30 @@ import static org.mockito.Mockito.*;
 
         assertTrue(result.isPresent());
         assertEquals("Bus", result.get().getName());
-        verify(transportRepository, never()).findById(anyLong());
+        verify(transportRepository, never()).findDtoById(anyLong());
     }
 
     @Test
     void testFindById_FromRepository() {
-        Transport transport = new Transport();
-        transport.setId(1L);
-        transport.setName("Train");
         when(cacheConfig.getTransport(1L)).thenReturn(null);
-        when(transportRepository.findById(1L)).thenReturn(Optional.of(transport));
+        when(cacheConfig.loadTransport(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, TransportDto>>getArgument(1).apply(1L));
+        when(transportRepository.findDtoById(1L))
+                .thenReturn(Optional.of(new TransportDto(1L, "Train", 300, 40.0, 0L)));
 
         Optional<TransportDto> result = transportService.findById(1L);
 
         assertTrue(result.isPresent());
         assertEquals("Train", result.get().getName());
-        verify(cacheConfig).putTransport(1L, result.get());
+        verify(cacheConfig).loadTransport(eq(1L), any());
     }
 
     @Test
     void testFindById_NotFound() {
         when(cacheConfig.getTransport(1L)).thenReturn(null);
-        when(transportRepository.findById(1L)).thenReturn(Optional.empty());
+        when(cacheConfig.loadTransport(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, TransportDto>>getArgument(1).apply(1L));
+        when(transportRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
         Optional<TransportDto> result = transportService.findById(1L);
 
@@ -127,7 +146,7 @@ import static org.mockito.Mockito.*;
         savedTransport.setCapacity(50);
         savedTransport.setCost(100.0);
 
-        when(transportRepository.save(any(Transport.class))).thenReturn(savedTransport);
+        when(transportRepository.saveAndFlush(any(Transport.class))).thenReturn(savedTransport);
 
         TransportDto result = transportService.save(transportDto);
 
@@ -138,6 +157,92 @@ import static org.mockito.Mockito.*;
         verify(cacheConfig).putTransport(1L, result);
     }
 
+    @Test
+    void testSaveTransport_ExistingIdAfterUpdate_KeepsStoredVersion() {
+        Transport storedTransport = new Transport();
+        storedTransport.setId(1L);
+        storedTransport.setName("Bus");
+        storedTransport.setVersion(4);
+
+        TransportDto transportDto = new TransportDto();
+        transportDto.setId(1L);
+        transportDto.setName("Coach");
+        transportDto.setCapacity(40);
+        transportDto.setCost(120.0);
+
+        when(transportRepository.findById(1L)).thenReturn(Optional.of(storedTransport));
+        when(transportRepository.saveAndFlush(any(Transport.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        TransportDto result = transportService.save(transportDto);
+
+        verify(transportRepository).saveAndFlush(same(storedTransport));
+        assertEquals("Coach", result.getName());
+        assertEquals(4L, result.getVersion());
+        verify(cacheConfig).invalidateTransport(1L);
+        verify(cacheConfig, never()).putTransport(anyLong(), any());
+    }
+
+    @Test
+    void testSaveTransport_ExistingId_EvictsToursEmbeddingIt() {
+        CacheConfig cache = new CacheConfig(new CacheProperties(), new ObjectMapper(),
+                Runnable::run, mock(PlatformTransactionManager.class));
+        TourDto tour = new TourDto();
+        tour.setId(5L);
+        tour.setTransport(new TransportDto(1L, "Bus", 40, 20.0, 0L));
+        cache.putTour(5L, tour);
+        assertNotNull(cache.getTour(5L));
+        TransportService service = new TransportService(transportRepository, tourRepository,
+                cache, changeFeed, bulkImporter, tourSearchIndex);
+        Transport storedTransport = new Transport();
+        storedTransport.setId(1L);
+        storedTransport.setName("Bus");
+
+        when(transportRepository.findById(1L)).thenReturn(Optional.of(storedTransport));
+        when(transportRepository.saveAndFlush(any(Transport.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.save(new TransportDto(1L, "Coach", 40, 25.0, 0L));
+
+        assertNull(cache.getTour(5L));
+    }
+
+    @Test
+    void testSaveTransport_UnknownIdInsertsNewRow() {
+        TransportDto transportDto = new TransportDto();
+        transportDto.setId(99L);
+        transportDto.setName("Bus");
+
+        when(transportRepository.findById(99L)).thenReturn(Optional.empty());
+        when(transportRepository.saveAndFlush(any(Transport.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        transportService.save(transportDto);
+
+        verify(transportRepository).saveAndFlush(argThat(transport -> transport.getId() == null));
+    }
+
+    @Test
+    void testSaveTransport_ExistingIdRenamed_InvalidatesBothNames() {
+        Transport storedTransport = new Transport();
+        storedTransport.setId(1L);
+        storedTransport.setName("Old Bus");
+
+        TransportDto transportDto = new TransportDto();
+        transportDto.setId(1L);
+        transportDto.setName("New Bus");
+        transportDto.setCapacity(40);
+        transportDto.setCost(75.0);
+
+        when(transportRepository.findById(1L)).thenReturn(Optional.of(storedTransport));
+        when(transportRepository.saveAndFlush(any(Transport.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        transportService.save(transportDto);
+
+        verify(cacheConfig).invalidateToursByTransport("Old Bus", "New Bus");
+    }
+
     // Тесты для метода updateTransport
     @Test
     void testUpdateTransport_Success() {
@@ -147,30 +252,22 @@ import static org.mockito.Mockito.*;
         existingTransport.setCapacity(30);
         existingTransport.setCost(50.0);
 
-        Tour tour = new Tour();
-        tour.setId(1L);
-        tour.setTransport(existingTransport);
-        Country country = new Country();
-        country.setId(1L);
-        tour.getCountries().add(country);
-
         TransportDto transportDto = new TransportDto();
         transportDto.setName("New Bus");
         transportDto.setCapacity(40);
         transportDto.setCost(75.0);
 
         when(transportRepository.findById(1L)).thenReturn(Optional.of(existingTransport));
-        when(transportRepository.save(any(Transport.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(tourRepository.findByTransport(existingTransport)).thenReturn(Collections.singletonList(tour));
+        when(transportRepository.saveAndFlush(any(Transport.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         TransportDto result = transportService.updateTransport(1L, transportDto);
 
         assertEquals("New Bus", result.getName());
         assertEquals(40, result.getCapacity());
         assertEquals(75.0, result.getCost(), 0.01);
-        verify(cacheConfig).putTransport(1L, result);
-        verify(cacheConfig).putTour(1L, TourMapper.toDto(tour));
-        verify(cacheConfig).putCountry(1L, CountryMapper.toDto(country));
+        verify(cacheConfig).invalidateTransport(1L);
+        verify(tourRepository, never()).clearTransport(any());
+        verify(cacheConfig).invalidateToursByTransport("Old Bus", "New Bus");
     }
 
     @Test
@@ -186,50 +283,59 @@ import static org.mockito.Mockito.*;
     // Тесты для метода deleteById
     @Test
     void testDeleteById_Success() {
-        Transport transport = new Transport();
-        transport.setId(1L);
-
-        Tour tour = new Tour();
-        tour.setId(1L);
-        tour.setTransport(transport);
-        Country country = new Country();
-        country.setId(1L);
-        tour.getCountries().add(country);
-
-        when(transportRepository.findById(1L)).thenReturn(Optional.of(transport));
-        when(tourRepository.findByTransport(transport)).thenReturn(Collections.singletonList(tour));
-        when(tourRepository.save(any(Tour.class))).thenReturn(tour);
+        when(transportRepository.existsById(1L)).thenReturn(true);
 
         transportService.deleteById(1L);
 
-        assertNull(tour.getTransport());
-        verify(transportRepository).delete(transport);
-        verify(cacheConfig).removeTransport(1L);
-        verify(cacheConfig).putTour(1L, TourMapper.toDto(tour));
-        verify(cacheConfig).putCountry(1L, CountryMapper.toDto(country));
+        verify(tourRepository).clearTransport(1L);
+        verify(transportRepository).bulkDeleteById(1L);
+        verify(tourRepository, never()).saveAndFlush(any());
+        verify(cacheConfig).invalidateTransport(1L);
+        verify(tourSearchIndex).changed(EntityType.TRANSPORT, 1L);
+        verify(changeFeed).publish(EntityType.TRANSPORT, 1L);
     }
 
     @Test
     void testDeleteById_NotFound() {
-        when(transportRepository.findById(1L)).thenReturn(Optional.empty());
+        when(transportRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(RuntimeException.class, () -> transportService.deleteById(1L));
+        verify(transportRepository, never()).bulkDeleteById(any());
     }
 
     @Test
     void testDeleteById_NoAssociatedTours() {
-        Transport transport = new Transport();
-        transport.setId(1L);
-
-        when(transportRepository.findById(1L)).thenReturn(Optional.of(transport));
-        when(tourRepository.findByTransport(transport)).thenReturn(Collections.emptyList());
+        when(transportRepository.existsById(1L)).thenReturn(true);
+        when(tourRepository.clearTransport(1L)).thenReturn(0);
 
         transportService.deleteById(1L);
 
-        verify(transportRepository).delete(transport);
-        verify(cacheConfig).removeTransport(1L);
-        verify(tourRepository, never()).save(any(Tour.class));
-        verify(cacheConfig, never()).putTour(anyLong(), any(TourDto.class));
-        verify(cacheConfig, never()).putCountry(anyLong(), any(CountryDto.class));
+        verify(transportRepository).bulkDeleteById(1L);
+        verify(cacheConfig).invalidateTransport(1L);
+    }
+
+    @Test
+    void testImportTransports_AnnouncesEveryInsertedId() {
+        when(transportRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transport> transports = invocation.getArgument(0);
+            for (int i = 0; i < transports.size(); i++) {
+                transports.get(i).setId(10L + i);
+            }
+            return transports;
+        });
+        String ndjson = """
+                {"name":"Bus","capacity":40,"cost":20.0}
+                {"name":"Train","capacity":300,"cost":45.0}
+                """;
+
+        ImportReportDto report = transportService.importTransports(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.NDJSON);
+
+        assertEquals(2, report.getImported());
+        verify(cacheConfig).forgetMissing(EntityType.TRANSPORT, List.of(10L, 11L));
+        verify(tourSearchIndex).changed(EntityType.TRANSPORT, List.of(10L, 11L));
+        verify(changeFeed).publishInserts(EntityType.TRANSPORT, List.of(10L, 11L));
+        verify(changeFeed, never()).publish(any(), any());
     }
-}
\ No newline at end of file
+}